@@ -0,0 +1,150 @@
+package commands;
+
+import model.Ammunition;
+import model.BenchmarkMaps;
+import model.Coordinate;
+import model.Map;
+import model.Ship;
+import model.Tile;
+import model.Tile.Direction;
+import model.Treasure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Command#execute(Map, Random, int)} für jeden Commandtyp, inklusive der Piratenprüfung am Ende.
+ * Die Barke steht auf dem Hafen in der Mitte einer offenen Karte. Jeder Aufruf stellt vorher den Zustand her, den
+ * der Command für seinen Erfolgsfall braucht (Gold, Munition, Schatz), damit alle Aufrufe denselben Pfad nehmen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+    private static final int GOLD = 1000;
+
+    @Param({"10", "50"})
+    public int size;
+
+    @Param({"5", "20"})
+    public int piratePercent;
+
+    private final OwnCommandFactory factory = new OwnCommandFactory();
+    private final Random random = new Random(42);
+    private Map map;
+    private Ship ship;
+    private Coordinate start;
+    private Tile startTile;
+    private Treasure treasure;
+    private int maxCycles;
+    private boolean east;
+
+    @Setup
+    public void setup() {
+        map = BenchmarkMaps.openSea(size, piratePercent, 42);
+        ship = map.getClientShip();
+        start = map.getStartPosition();
+        startTile = map.getTile(start.getxCoordinate(), start.getyCoordinate());
+        treasure = new Treasure(5);
+        maxCycles = map.getMaxCycles();
+    }
+
+    private List<?> execute(Command command) {
+        ship.setHealth(ship.getMaxHealth());
+        return command.execute(map, random, 3);
+    }
+
+    @Benchmark
+    public List<?> register() {
+        map.setGameStarted(false);
+        return execute(factory.createRegister("benchmark", Ship.ActorType.BARQUE));
+    }
+
+    /**
+     * Abwechselnd nach Osten und zurück, jeder Zug aktualisiert das Sichtfeld.
+     */
+    @Benchmark
+    public List<?> move() {
+        east = !east;
+        return execute(factory.createMove(east ? Direction.EAST : Direction.WEST));
+    }
+
+    @Benchmark
+    public List<?> endTurn() {
+        return execute(factory.createEndTurn());
+    }
+
+    @Benchmark
+    public List<?> repair() {
+        ship.setGold(GOLD);
+        return execute(factory.createRepair());
+    }
+
+    @Benchmark
+    public List<?> fire() {
+        ship.setLoaded(true);
+        return execute(factory.createFire(Direction.NORTH));
+    }
+
+    @Benchmark
+    public List<?> pickup() {
+        ship.getTreasureStorage().clear();
+        startTile.setTreasure(treasure);
+        return execute(factory.createPickup());
+    }
+
+    @Benchmark
+    public List<?> sell() {
+        ship.getTreasureStorage().add(treasure);
+        return execute(factory.createSell());
+    }
+
+    @Benchmark
+    public List<?> drop() {
+        ship.getTreasureStorage().clear();
+        ship.getTreasureStorage().add(treasure);
+        startTile.setTreasure(null);
+        return execute(factory.createDrop(0));
+    }
+
+    @Benchmark
+    public List<?> reload() {
+        ship.setLoaded(false);
+        ship.getAmmunitionStorage().clear();
+        ship.getAmmunitionStorage().add(new Ammunition());
+        return execute(factory.createReload());
+    }
+
+    @Benchmark
+    public List<?> restock() {
+        ship.setGold(GOLD);
+        ship.getAmmunitionStorage().clear();
+        return execute(factory.createRestock(3));
+    }
+
+    @Benchmark
+    public List<?> leave() {
+        map.setMaxCycles(maxCycles);
+        return execute(factory.createLeave());
+    }
+
+    @Benchmark
+    public List<?> resync() {
+        return execute(factory.createResync());
+    }
+}
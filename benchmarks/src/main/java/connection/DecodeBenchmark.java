@@ -0,0 +1,53 @@
+package connection;
+
+import commands.Command;
+import commands.OwnCommandFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dekodieren eines Commands mit {@link ServerConnection#nextCommand()}, für jeden Commandtyp im alten
+ * Protokoll (Enums als Namen) und im kompakten (Enums als Ordinalzahlen).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"register", "move", "endTurn", "repair", "fire", "pickup", "sell", "drop", "reload", "restock", "leave", "resync", "plan"})
+    public String command;
+
+    @Param({"1", "2"})
+    public int protocol;
+
+    private ServerConnection<Command> connection;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws IOException {
+        FrameChannel channel = new FrameChannel(blackhole);
+        channel.setFrame(Frames.command(command, protocol));
+        connection = new ServerConnection<>(channel, new OwnCommandFactory());
+    }
+
+    @Benchmark
+    public Command nextCommand() throws TimeoutException {
+        return connection.nextCommand();
+    }
+}
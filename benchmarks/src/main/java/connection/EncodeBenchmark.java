@@ -0,0 +1,118 @@
+package connection;
+
+import commands.Command;
+import commands.OwnCommandFactory;
+import model.Tile.FieldEffect;
+import model.Tile.FieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Kodieren und Versenden jedes Events über die sendXxx-Methoden der {@link ServerConnection}, im alten und im
+ * kompakten Protokoll. Die Version wird wie im echten Spiel über den Register-Command ausgehandelt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+    @Param({"registrationAborted", "gameStarted", "moved", "mapUpdate", "actNow", "gameEnd", "nextCycle", "damaged",
+            "robbed", "repaired", "pickedUp", "hit", "sold", "dropped", "reloaded", "restocked", "swirlEffect",
+            "stormEffect", "commandFailed"})
+    public String event;
+
+    @Param({"1", "2"})
+    public int protocol;
+
+    private ServerConnection<Command> connection;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws IOException, TimeoutException {
+        FrameChannel channel = new FrameChannel(blackhole);
+        channel.setFrame(Frames.command("register", protocol));
+        connection = new ServerConnection<>(channel, new OwnCommandFactory());
+        connection.nextCommand();
+    }
+
+    @Benchmark
+    public void send() {
+        switch (event) {
+            case "registrationAborted":
+                connection.sendRegistrationAborted();
+                break;
+            case "gameStarted":
+                connection.sendGameStarted(25, 25, 5000, 125, 125, 25);
+                break;
+            case "moved":
+                connection.sendMoved(7, 3);
+                break;
+            case "mapUpdate":
+                connection.sendMapUpdate(7, 3, true, 5, true, false, true, true, FieldType.NORMAL, FieldEffect.NONE);
+                break;
+            case "actNow":
+                connection.sendActNow(3);
+                break;
+            case "gameEnd":
+                connection.sendGameEnd(120);
+                break;
+            case "nextCycle":
+                connection.sendNextCycle(4000);
+                break;
+            case "damaged":
+                connection.sendDamaged(1);
+                break;
+            case "robbed":
+                connection.sendRobbed();
+                break;
+            case "repaired":
+                connection.sendRepaired(5);
+                break;
+            case "pickedUp":
+                connection.sendPickedUp(5);
+                break;
+            case "hit":
+                connection.sendHit();
+                break;
+            case "sold":
+                connection.sendSold(45);
+                break;
+            case "dropped":
+                connection.sendDropped(5);
+                break;
+            case "reloaded":
+                connection.sendReloaded();
+                break;
+            case "restocked":
+                connection.sendRestocked(3);
+                break;
+            case "swirlEffect":
+                connection.sendSwirlEffect(7, 3);
+                break;
+            case "stormEffect":
+                connection.sendStormEffect();
+                break;
+            case "commandFailed":
+                connection.sendCommandFailed("Ungültiger Zug");
+                break;
+            default:
+                throw new IllegalArgumentException("unknown event " + event);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package connection;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Channel ohne Socket: liefert bei jedem Empfang denselben vorbereiteten Frame und verwirft gesendete Frames.
+ */
+final class FrameChannel implements ServerChannel {
+    private final Blackhole blackhole;
+    private byte[] frame;
+
+    FrameChannel(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    void setFrame(byte[] frame) {
+        this.frame = frame;
+    }
+
+    @Override
+    public byte[] receive() {
+        return frame;
+    }
+
+    @Override
+    public byte[] poll() {
+        return frame;
+    }
+
+    @Override
+    public void send(ByteBuffer payload) {
+        blackhole.consume(payload.get(payload.limit() - 1));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,89 @@
+package connection;
+
+import connection.ServerConnection.Commands;
+import model.Ship.ActorType;
+import model.Tile.Direction;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.io.IOException;
+
+/**
+ * Kodiert Commands so, wie ein Client sie in der jeweiligen Protokollversion schickt.
+ */
+final class Frames {
+
+    private Frames() {
+    }
+
+    /**
+     * @param command Name des Commands wie in der {@link CommandFactory}, z.B. {@code "move"}
+     */
+    static byte[] command(String command, int protocol) throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        switch (command) {
+            case "register":
+                packer.packInt(Commands.REGISTER).packString("benchmark");
+                if (protocol >= ServerConnection.PROTOCOL_COMPACT) {
+                    packer.packInt(ActorType.BARQUE.ordinal()).packInt(protocol);
+                } else {
+                    packer.packString(ActorType.BARQUE.name());
+                }
+                break;
+            case "move":
+                packer.packInt(Commands.MOVE);
+                packDirection(packer, Direction.EAST, protocol);
+                break;
+            case "fire":
+                packer.packInt(Commands.FIRE);
+                packDirection(packer, Direction.EAST, protocol);
+                break;
+            case "drop":
+                packer.packInt(Commands.DROP).packInt(0);
+                break;
+            case "restock":
+                packer.packInt(Commands.RESTOCK).packInt(3);
+                break;
+            case "endTurn":
+                packer.packInt(Commands.ENDTURN);
+                break;
+            case "repair":
+                packer.packInt(Commands.REPAIR);
+                break;
+            case "pickup":
+                packer.packInt(Commands.PICKUP);
+                break;
+            case "sell":
+                packer.packInt(Commands.SELL);
+                break;
+            case "reload":
+                packer.packInt(Commands.RELOAD);
+                break;
+            case "leave":
+                packer.packInt(Commands.LEAVE);
+                break;
+            case "resync":
+                packer.packInt(Commands.RESYNC);
+                break;
+            case "plan":
+                packer.packInt(Commands.PLAN).packInt(3).packInt(Commands.MOVE);
+                packDirection(packer, Direction.EAST, protocol);
+                packer.packInt(Commands.FIRE);
+                packDirection(packer, Direction.EAST, protocol);
+                packer.packInt(Commands.ENDTURN);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown command " + command);
+        }
+        packer.close();
+        return packer.toByteArray();
+    }
+
+    private static void packDirection(MessageBufferPacker packer, Direction direction, int protocol) throws IOException {
+        if (protocol >= ServerConnection.PROTOCOL_COMPACT) {
+            packer.packInt(direction.ordinal());
+        } else {
+            packer.packString(direction.name());
+        }
+    }
+}
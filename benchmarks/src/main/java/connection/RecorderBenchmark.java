@@ -0,0 +1,74 @@
+package connection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kosten eines einzelnen aufgezeichneten Events. Das Journal schreibt nach /dev/null, gemessen wird also nur die
+ * Arbeit im Serverthread; der Ring wird im Lauf viele Male überschrieben.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecorderBenchmark {
+
+    @Param({"journal", "ring"})
+    public String recorder;
+
+    /**
+     * Ein MapUpdate ist 21 Byte lang, ein Batch-Frame mit einer typischen Zugantwort rund 300.
+     */
+    @Param({"21", "300"})
+    public int frameSize;
+
+    private Path ringFile;
+    private JournalRing ring;
+    private GameRecorder target;
+    private ByteBuffer frame;
+
+    @Setup
+    public void setup() throws IOException {
+        if (recorder.equals("ring")) {
+            ringFile = Files.createTempFile("bench", ".ring");
+            ring = JournalRing.create(ringFile, 4, 4 * 1024 * 1024);
+            target = ring.open("benchmark", 0);
+        } else {
+            target = GameJournal.create(Paths.get("/dev/null"), "benchmark", 0);
+        }
+        frame = ByteBuffer.allocate(frameSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        target.close();
+        if (ring != null) {
+            ring.close();
+            Files.delete(ringFile);
+        }
+    }
+
+    @Benchmark
+    public void sent() {
+        target.sent(frame);
+    }
+}
@@ -0,0 +1,132 @@
+package connection;
+
+import commands.Command;
+import commands.OwnCommandFactory;
+import model.Tile.FieldEffect;
+import model.Tile.FieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kosten des Sendepfads einer ServerConnection ohne Socket. Mit {@code -prof gc} muss
+ * {@code gc.alloc.rate.norm} im eingeschwungenen Zustand bei 0 B/op liegen, auch mit {@code journal=true}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendBenchmark {
+
+    /**
+     * Channel, der jeden Frame nur liest und verwirft.
+     */
+    static final class NullChannel implements ServerChannel {
+        private final Blackhole blackhole;
+
+        NullChannel(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public byte[] receive() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] poll() {
+            return null;
+        }
+
+        @Override
+        public void send(ByteBuffer payload) {
+            blackhole.consume(payload.get(payload.limit() - 1));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Param({"false", "true"})
+    public boolean batching;
+
+    /**
+     * Jeden gesendeten Frame zusätzlich in ein {@link GameJournal} schreiben.
+     */
+    @Param({"false", "true"})
+    public boolean journal;
+
+    private ServerConnection<Command> connection;
+    private Path journalFile;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        connection = new ServerConnection<>(new NullChannel(blackhole), new OwnCommandFactory());
+        connection.setBatching(batching);
+    }
+
+    /**
+     * Pro Iteration ein frisches Journal, damit die Datei nicht über den ganzen Lauf wächst.
+     */
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        if (journal) {
+            journalFile = Files.createTempFile("send", ".journal");
+            connection.setRecorder(GameJournal.create(journalFile, "benchmark", 0));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        if (journal) {
+            connection.getRecorder().close();
+            connection.setRecorder(null);
+            Files.delete(journalFile);
+        }
+    }
+
+    @Benchmark
+    public void sendMapUpdate() {
+        connection.sendMapUpdate(7, 3, true, 120, true, false, true, true, FieldType.NORMAL, FieldEffect.NONE);
+        connection.flush();
+    }
+
+    @Benchmark
+    public void sendActNow() {
+        connection.sendActNow(3);
+        connection.flush();
+    }
+
+    /**
+     * Typische Antwort auf einen MoveCommand: Moved, 13 MapUpdates, ActNow.
+     */
+    @Benchmark
+    public void sendMoveResponse() {
+        connection.sendMoved(7, 3);
+        for (int i = 0; i < 13; i++) {
+            connection.sendMapUpdate(i, 3, false, 0, true, true, false, false, FieldType.NORMAL, FieldEffect.NONE);
+        }
+        connection.sendActNow(2);
+        connection.flush();
+    }
+}
@@ -0,0 +1,77 @@
+package connection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Latenz eines Roundtrips über jeden {@link Transport}: der Client sendet einen Frame, der Endpoint schickt ihn
+ * unverändert zurück. {@code size=32} entspricht einem Command oder einzelnen Event, {@code size=4096} einem
+ * großen Batch. {@code shm} gegen {@code nio} vergleicht gemeinsamen Speicher mit TCP über Loopback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+    private static final int PORT = 47123;
+
+    @Param({JeroMqTransport.NAME, NioTransport.NAME, ShmTransport.NAME, InMemoryTransport.NAME})
+    public String transport;
+
+    @Param({"32", "4096"})
+    public int size;
+
+    private Transport.Endpoint endpoint;
+    private ClientChannel client;
+    private ByteBuffer frame;
+
+    @Setup
+    public void setup() throws TimeoutException {
+        Transport selected = Transport.forName(transport);
+        endpoint = selected.listen(PORT);
+        Thread io = new Thread(() -> endpoint.run(new Transport.Endpoint.Receiver() {
+            @Override
+            public void received(int peer, byte[] payload) {
+                endpoint.send(peer, payload);
+            }
+
+            @Override
+            public void failed(int peer, CommException e) {
+            }
+        }), "echo");
+        io.setDaemon(true);
+        io.start();
+        client = selected.connect("localhost", PORT, 5000);
+        frame = ByteBuffer.allocate(size);
+        roundTrip(); // Verbindung steht, bevor gemessen wird
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        endpoint.close();
+    }
+
+    @Benchmark
+    public byte[] roundTrip() throws TimeoutException {
+        frame.clear();
+        client.send(frame);
+        return client.receive();
+    }
+}
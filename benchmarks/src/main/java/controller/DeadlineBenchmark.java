@@ -0,0 +1,78 @@
+package controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Was der {@link GameScheduler} nach jedem Command tut: die Deadline eines Spiels abbrechen und neu anlegen, während
+ * {@code sessions} andere Spiele ebenfalls eine Deadline haben. Verglichen werden das {@link DeadlineWheel} und ein
+ * {@link ScheduledThreadPoolExecutor}, dessen Heap pro Aufruf O(log n) kostet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeadlineBenchmark {
+    private static final Runnable EXPIRE = () -> {
+    };
+    private static final long TIMEOUT = 60_000;
+
+    @Param({"1000", "50000"})
+    public int sessions;
+
+    private DeadlineWheel wheel;
+    private DeadlineWheel.Deadline[] deadlines;
+    private ScheduledThreadPoolExecutor executor;
+    private ScheduledFuture<?>[] futures;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        wheel = new DeadlineWheel();
+        deadlines = new DeadlineWheel.Deadline[sessions];
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        futures = new ScheduledFuture<?>[sessions];
+        for (int i = 0; i < sessions; i++) {
+            deadlines[i] = wheel.schedule(EXPIRE, TIMEOUT, TimeUnit.MILLISECONDS);
+            futures[i] = executor.schedule(EXPIRE, TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Object wheel() {
+        int i = next++ % sessions;
+        deadlines[i].cancel();
+        return deadlines[i] = wheel.schedule(EXPIRE, TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    public Object scheduledExecutor() {
+        int i = next++ % sessions;
+        futures[i].cancel(false);
+        return futures[i] = executor.schedule(EXPIRE, TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,85 @@
+package controller;
+
+import model.BenchmarkMaps;
+import model.Coordinate;
+import model.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.MapFile;
+import util.StreamingMapLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modus für große Karten auf offenem Meer aus {@link BenchmarkMaps#ocean(int, int, long)}: Laden der JSON-Datei mit
+ * {@link StreamingMapLoader}, Laden der übersetzten Datei und die Piratenphase eines Zyklus. Deren Kosten hängen nur
+ * an der Zahl der Piraten, nicht an der Fläche der Karte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LargeMapBenchmark {
+    private static final int POSITIONS = 1024;
+
+    @Param({"1000", "4096"})
+    public int size;
+
+    @Param({"1000"})
+    public int pirates;
+
+    private String path;
+    private String compiledPath;
+    private Map map;
+    private GameEngine engine;
+    private Coordinate[] positions;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        map = BenchmarkMaps.ocean(size, pirates, 42);
+        path = BenchmarkMaps.writeLargeJson(map);
+        Path compiled = Files.createTempFile("benchmark", MapFile.EXTENSION);
+        compiled.toFile().deleteOnExit();
+        MapFile.write(map, compiled);
+        compiledPath = compiled.toString();
+        engine = new GameEngine(map, 42);
+        Random random = new Random(7);
+        positions = new Coordinate[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            positions[i] = new Coordinate(random.nextInt(size), random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public Map streamJson() throws IOException {
+        return StreamingMapLoader.fromJson(path);
+    }
+
+    @Benchmark
+    public Map compiled() throws IOException {
+        return MapFile.readChunked(compiledPath);
+    }
+
+    @Benchmark
+    public Object movePirates() {
+        map.getClientShip().setPosition(positions[next++ & (POSITIONS - 1)]);
+        map.getClientShip().setHealth(Integer.MAX_VALUE);
+        return engine.movePirates();
+    }
+}
@@ -0,0 +1,64 @@
+package controller;
+
+import model.BenchmarkMaps;
+import model.Coordinate;
+import model.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Die Piratenphase am Ende eines Zyklus ({@link GameEngine#movePirates()}) auf offenem Meer bis zur größten erlaubten
+ * Karte, mit der regulären Piratenzahl (5 % der Felder) und einer vierfach überfüllten Karte. Das Schiff springt vor
+ * jedem Aufruf auf ein anderes Feld, damit sich die Piraten nicht dauerhaft darauf sammeln und das Sichtfeld
+ * wie im echten Spiel wechselt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PirateMoveBenchmark {
+    private static final int POSITIONS = 1024;
+
+    @Param({"10", "20", "50"})
+    public int size;
+
+    @Param({"5", "20"})
+    public int piratePercent;
+
+    private Map map;
+    private GameEngine engine;
+    private Coordinate[] positions;
+    private int next;
+
+    @Setup
+    public void setup() {
+        map = BenchmarkMaps.openSea(size, piratePercent, 42);
+        engine = new GameEngine(map, 42);
+        Random random = new Random(7);
+        positions = new Coordinate[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            positions[i] = new Coordinate(random.nextInt(size), random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public Object movePirates() {
+        map.getClientShip().setPosition(positions[next++ & (POSITIONS - 1)]);
+        map.getClientShip().setHealth(Integer.MAX_VALUE);
+        return engine.movePirates();
+    }
+}
@@ -0,0 +1,24 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Einstieg von benchmarks.jar: startet JMH mit den übergebenen Optionen und schaltet den Allokations-Profiler
+ * ({@code -prof gc}) ein, solange kein anderer Profiler angegeben ist.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-prof")) {
+            org.openjdk.jmh.Main.main(args);
+        } else {
+            String[] withGc = Arrays.copyOf(args, args.length + 2);
+            withGc[args.length] = "-prof";
+            withGc[args.length + 1] = "gc";
+            org.openjdk.jmh.Main.main(withGc);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Was ein Messpunkt mit eingeschalteten {@link ServerMetrics} kostet: {@link Histogram#record(long)} mit Werten über
+ * mehrere Größenordnungen, der Weg über die Klasse wie bei Commands und Events, und eine Auswertung.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistogramBenchmark {
+    private static final int VALUES = 1024;
+
+    private final Histogram histogram = new Histogram();
+    private long[] values;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        values = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 16);
+        }
+        for (long value : values) {
+            histogram.record(value);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(values[next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public void recordByClass() {
+        ServerMetrics.get().recordCommand(HistogramBenchmark.class, values[next++ & (VALUES - 1)]);
+    }
+
+    @Benchmark
+    public HistogramSnapshot snapshot() {
+        return histogram.snapshot();
+    }
+}
@@ -0,0 +1,239 @@
+package model;
+
+import model.Tile.FieldEffect;
+import model.Tile.FieldType;
+
+import util.MapUtil;
+import util.Marshall;
+import util.Pair;
+import util.SerializableMap;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Erzeugt zufällige Karten für die Benchmarks.
+ */
+public final class BenchmarkMaps {
+
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * @return size x size Tiles, etwa jedes zehnte mit Pirat und jedes zwanzigste mit Schatz
+     */
+    public static Tile[][] randomTiles(int size, long seed) {
+        Random random = new Random(seed);
+        FieldType[] types = FieldType.values();
+        FieldEffect[] effects = FieldEffect.values();
+        Tile[][] tiles = new Tile[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                Treasure treasure = random.nextInt(20) == 0 ? new Treasure(1 + random.nextInt(9)) : null;
+                tiles[y][x] = new Tile(effects[random.nextInt(effects.length)], types[random.nextInt(types.length)],
+                        random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), random.nextBoolean(),
+                        random.nextInt(10) == 0, treasure);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Offenes Meer: size x size normale Felder, die mit allen Nachbarn verbunden sind, der Ausgang oben links, eine
+     * Barke auf einem Hafen in der Mitte, ein Schatz auf jedem zwanzigsten Feld und Piraten auf
+     * {@code piratePercent} Prozent der Felder. Die Karte ist gültig im Sinne von
+     * {@link util.SerializableMap#toMapValid()}.
+     */
+    public static Map openSea(int size, int piratePercent, long seed) {
+        Random random = new Random(seed);
+        Tile[][] tiles = new Tile[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                tiles[y][x] = new Tile(FieldEffect.NONE, FieldType.NORMAL,
+                        y > 0, x < size - 1, y < size - 1, x > 0, false, null);
+            }
+        }
+        Map map = new Map(size, size);
+        map.setTiles(tiles);
+        map.setStartPosition(new Coordinate(size / 2, size / 2));
+        MapUtil.addExit(map, new Coordinate(0, 0));
+        MapUtil.addPorts(map, List.of(map.getStartPosition()));
+
+        Set<Coordinate> pirates = new LinkedHashSet<>();
+        int count = Math.min((int) Math.ceil(size * size * piratePercent / 100.0), size * size - 2);
+        while (pirates.size() < count) {
+            Coordinate position = new Coordinate(random.nextInt(size), random.nextInt(size));
+            if (MapUtil.index(map, position).getFieldType() == FieldType.NORMAL) {
+                pirates.add(position);
+            }
+        }
+        MapUtil.addPirates(map, pirates);
+
+        List<Pair<Coordinate, Treasure>> treasures = new ArrayList<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (random.nextInt(20) == 0) {
+                    treasures.add(new Pair<>(new Coordinate(x, y), new Treasure(1 + random.nextInt(9))));
+                }
+            }
+        }
+        MapUtil.addTreasures(map, treasures);
+
+        map.setClientShip(new Barque(map.getStartPosition(), "benchmark"));
+        map.setGameStarted(true);
+        return map;
+    }
+
+    /**
+     * Irrgarten: die Verbindungen bilden einen zufälligen Spannbaum über alle size x size Felder, jede Zeile zerfällt
+     * also in viele kurze Abschnitte. Ausgang oben links, Hafen mit Start in der Mitte, keine Piraten und Schätze.
+     * Die Karte ist gültig im Sinne von {@link util.SerializableMap#toMapValid()}.
+     */
+    public static Map maze(int size, long seed) {
+        Random random = new Random(seed);
+        Tile[][] tiles = new Tile[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                tiles[y][x] = new Tile(FieldEffect.NONE, FieldType.NORMAL, false, false, false, false, false, null);
+            }
+        }
+        //zufällige Tiefensuche mit eigenem Stack, damit auch große Karten keinen StackOverflow auslösen
+        boolean[] visited = new boolean[size * size];
+        int[] stack = new int[size * size];
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        int[] dx = {0, 1, 0, -1};
+        int[] dy = {-1, 0, 1, 0};
+        Tile.Direction[] directions = {Tile.Direction.NORTH, Tile.Direction.EAST, Tile.Direction.SOUTH, Tile.Direction.WEST};
+        int[] open = new int[4];
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int x = cell % size;
+            int y = cell / size;
+            int count = 0;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + dx[d];
+                int ny = y + dy[d];
+                if (nx >= 0 && nx < size && ny >= 0 && ny < size && !visited[ny * size + nx]) {
+                    open[count++] = d;
+                }
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int d = open[random.nextInt(count)];
+            int next = (y + dy[d]) * size + x + dx[d];
+            tiles[y][x].addDirection(directions[d]);
+            tiles[y + dy[d]][x + dx[d]].addDirection(directions[(d + 2) % 4]);
+            visited[next] = true;
+            stack[top++] = next;
+        }
+        Map map = new Map(size, size);
+        map.setTiles(tiles);
+        map.setStartPosition(new Coordinate(size / 2, size / 2));
+        MapUtil.addExit(map, new Coordinate(0, 0));
+        MapUtil.addPorts(map, List.of(map.getStartPosition()));
+        return map;
+    }
+
+    /**
+     * Großes offenes Meer im {@link ChunkedTileStore}: Ausgang oben links, eine Barke auf einem Hafen in der Mitte,
+     * {@code pirates} Piraten und halb so viele Schätze verstreut. Die Karte ist gültig im Sinne von
+     * {@link util.StreamingMapLoader}.
+     */
+    public static Map ocean(int size, int pirates, long seed) {
+        Random random = new Random(seed);
+        Map map = new Map(size, size);
+        map.setTileStore(new ChunkedTileStore(size, size));
+        map.setStartPosition(new Coordinate(size / 2, size / 2));
+        MapUtil.addExit(map, new Coordinate(0, 0));
+        MapUtil.addPorts(map, List.of(map.getStartPosition()));
+
+        Set<Coordinate> positions = new LinkedHashSet<>();
+        while (positions.size() < pirates + pirates / 2) {
+            Coordinate position = new Coordinate(random.nextInt(size), random.nextInt(size));
+            if (MapUtil.index(map, position).getFieldType() == FieldType.NORMAL) {
+                positions.add(position);
+            }
+        }
+        List<Coordinate> all = new ArrayList<>(positions);
+        MapUtil.addPirates(map, all.subList(0, pirates));
+        List<Pair<Coordinate, Treasure>> treasures = new ArrayList<>();
+        for (Coordinate position : all.subList(pirates, all.size())) {
+            treasures.add(new Pair<>(position, new Treasure(1 + random.nextInt(9))));
+        }
+        MapUtil.addTreasures(map, treasures);
+
+        map.setClientShip(new Barque(map.getStartPosition(), "benchmark"));
+        map.setGameStarted(true);
+        return map;
+    }
+
+    /**
+     * Wie {@link #writeJson(Map)}, schreibt die Karte aber Zeile für Zeile, ohne ihre String-Repräsentation im
+     * Speicher aufzubauen. Für Karten aus {@link #ocean(int, int, long)}.
+     */
+    public static String writeLargeJson(Map map) throws IOException {
+        Path path = Files.createTempFile("benchmark-map", ".json");
+        path.toFile().deleteOnExit();
+        List<Coordinate> harbors = new ArrayList<>();
+        List<Pair<Coordinate, Treasure>> treasures = new ArrayList<>();
+        Coordinate exit = null;
+        for (int y = 0; y < map.getHeight(); y++) {
+            for (int x = 0; x < map.getWidth(); x++) {
+                Tile tile = map.getTile(x, y);
+                if (tile.getFieldType() == FieldType.HARBOR) {
+                    harbors.add(new Coordinate(x, y));
+                } else if (tile.getFieldType() == FieldType.EXIT) {
+                    exit = new Coordinate(x, y);
+                }
+                if (tile.getTreasure() != null) {
+                    treasures.add(new Pair<>(new Coordinate(x, y), tile.getTreasure()));
+                }
+            }
+        }
+        List<Coordinate> pirates = new ArrayList<>();
+        for (Pirate pirate : map.getPirates()) {
+            pirates.add(pirate.getPosition());
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write("{\"width\": " + map.getWidth() + ", \"height\": " + map.getHeight()
+                    + ", \"start\": " + Marshall.toJSON(map.getStartPosition())
+                    + ", \"exit\": " + Marshall.toJSON(exit)
+                    + ", \"harbors\": " + Marshall.toJSON(harbors, Marshall::toJSON)
+                    + ", \"pirates\": " + Marshall.toJSON(pirates, Marshall::toJSON)
+                    + ", \"treasures\": " + Marshall.toJSON(treasures, Marshall::toJSON)
+                    + ", \"map\": [\n");
+            for (int y = 0; y < map.getHeight(); y++) {
+                out.write('"');
+                for (int x = 0; x < map.getWidth(); x++) {
+                    out.write(map.getTile(x, y).toString());
+                }
+                out.write(y < map.getHeight() - 1 ? "\",\n" : "\"\n");
+            }
+            out.write("]}\n");
+        }
+        return path.toString();
+    }
+
+    /**
+     * Schreibt die Karte im JSON-Format von {@link util.SerializableMap} in eine temporäre Datei.
+     *
+     * @return Pfad der Datei, sie wird beim Beenden der JVM gelöscht
+     */
+    public static String writeJson(Map map) throws IOException {
+        Path path = Files.createTempFile("benchmark-map", ".json");
+        path.toFile().deleteOnExit();
+        Files.writeString(path, new SerializableMap(map).toJson().toString());
+        return path.toString();
+    }
+}
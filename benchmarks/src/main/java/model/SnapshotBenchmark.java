@@ -0,0 +1,78 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sichern und Zurückspielen des Spielzustands mit {@link MapSnapshot}. {@code restore} wechselt bei jedem Aufruf
+ * zwischen zwei Zuständen, die sich in Piraten, Effekten und Schiff unterscheiden, wie beim Zurücksetzen einer Suche.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({"10", "50"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean packed;
+
+    private Map map;
+    private MapSnapshot[] states;
+    private int next;
+
+    @Setup
+    public void setup() {
+        map = BenchmarkMaps.openSea(size, 20, 42);
+        if (packed) {
+            map.packTiles();
+        }
+        MapSnapshot before = map.snapshot();
+        Random random = new Random(7);
+        List<Pirate> pirates = map.getPirates();
+        for (int i = 0; i < pirates.size(); i += 2) {
+            map.movePirate(pirates.get(i), new Coordinate(random.nextInt(size), random.nextInt(size)));
+        }
+        for (int i = 0; i < size; i++) {
+            map.spawnEffects(random);
+        }
+        map.getClientShip().setHealth(1);
+        map.getClientShip().getAmmunitionStorage().remove();
+        map.setCycles(size);
+        states = new MapSnapshot[]{before, map.snapshot()};
+    }
+
+    @Benchmark
+    public MapSnapshot snapshot() {
+        return map.snapshot();
+    }
+
+    @Benchmark
+    public Map restore() {
+        next ^= 1;
+        map.restore(states[next]);
+        return map;
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return states[0].toBytes();
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Liest alle Felder einer Karte über {@link TileStore#get(int, int)}, einmal aus Tile-Objekten und einmal aus dem
+ * {@link PackedTileStore}. Der Heap-Bedarf beider Varianten steht in {@link TileStoreFootprint}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileStoreBenchmark {
+
+    @Param({"50", "200"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean packed;
+
+    private TileStore store;
+
+    @Setup
+    public void setup() {
+        TileStore objects = new ObjectTileStore(BenchmarkMaps.randomTiles(size, 42));
+        store = packed ? PackedTileStore.of(objects) : objects;
+    }
+
+    @Benchmark
+    public int scan() {
+        int sum = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                Tile tile = store.get(x, y);
+                if (tile.isPirate()) {
+                    sum++;
+                }
+                if (tile.getTreasure() != null) {
+                    sum += tile.getTreasure().getValue();
+                }
+                sum += tile.getEffect().ordinal();
+            }
+        }
+        return sum;
+    }
+}
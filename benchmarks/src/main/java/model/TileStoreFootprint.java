@@ -0,0 +1,35 @@
+package model;
+
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Vergleicht den Heap-Bedarf einer Karte als Tile-Objekte und als {@link PackedTileStore}.
+ * Gemessen wird der ganze von einem Store aus erreichbare Objektgraph, die Enum-Konstanten sind also bei beiden
+ * mitgezählt.
+ */
+public final class TileStoreFootprint {
+
+    private TileStoreFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{10, 50, 200} : parse(args);
+        System.out.printf("%8s %14s %14s %8s %14s%n", "size", "objects [B]", "packed [B]", "ratio", "objects [#]");
+        for (int size : sizes) {
+            ObjectTileStore objects = new ObjectTileStore(BenchmarkMaps.randomTiles(size, size));
+            PackedTileStore packed = PackedTileStore.of(objects);
+            GraphLayout objectLayout = GraphLayout.parseInstance(objects);
+            long packedSize = GraphLayout.parseInstance(packed).totalSize();
+            System.out.printf("%5dx%-3d %14d %14d %7.1fx %14d%n", size, size, objectLayout.totalSize(), packedSize,
+                    objectLayout.totalSize() / (double) packedSize, objectLayout.totalCount());
+        }
+    }
+
+    private static int[] parse(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
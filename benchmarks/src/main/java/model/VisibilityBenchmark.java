@@ -0,0 +1,75 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sichtfeld des Spielers: die Liste aus {@link Map#getVisiblePlayerCoordinates()} bei stehendem und bei fahrendem
+ * Schiff, und die Einzelabfrage {@link Map#isVisibleToPlayer(int, int)} für alle Piraten der Karte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisibilityBenchmark {
+    private static final int POSITIONS = 1024;
+
+    @Param({"10", "50"})
+    public int size;
+
+    @Param({"5", "20"})
+    public int piratePercent;
+
+    private Map map;
+    private Ship ship;
+    private Coordinate[] positions;
+    private int next;
+
+    @Setup
+    public void setup() {
+        map = BenchmarkMaps.openSea(size, piratePercent, 42);
+        ship = map.getClientShip();
+        Random random = new Random(7);
+        positions = new Coordinate[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            positions[i] = new Coordinate(random.nextInt(size), random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public List<Coordinate> visibleCoordinatesStanding() {
+        return map.getVisiblePlayerCoordinates();
+    }
+
+    @Benchmark
+    public List<Coordinate> visibleCoordinatesMoving() {
+        ship.setPosition(positions[next++ & (POSITIONS - 1)]);
+        return map.getVisiblePlayerCoordinates();
+    }
+
+    @Benchmark
+    public int visiblePirates() {
+        int visible = 0;
+        for (Pirate pirate : map.getPirates()) {
+            if (map.isVisibleToPlayer(pirate.getPosition())) {
+                visible++;
+            }
+        }
+        return visible;
+    }
+}
@@ -0,0 +1,54 @@
+package util;
+
+import model.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Erzeugen einer Karte mit dem {@link MapGenerator}, jeder Aufruf mit einem neuen Seed. {@code generateValid} prüft
+ * die Karte danach wie beim Laden aus JSON, als Vergleich zum Aufwand des Generators selbst.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapGeneratorBenchmark {
+
+    @Param({"10", "50"})
+    public int size;
+
+    @Param({"0", "0.3", "1"})
+    public double openness;
+
+    private MapGenerator generator;
+    private long seed;
+
+    @Setup
+    public void setup() {
+        generator = new MapGenerator(size, size);
+        generator.setOpenness(openness);
+    }
+
+    @Benchmark
+    public Map generate() {
+        return generator.generate(seed++);
+    }
+
+    @Benchmark
+    public Map generateValid() {
+        return new SerializableMap(generator.generate(seed++)).toMapValid();
+    }
+}
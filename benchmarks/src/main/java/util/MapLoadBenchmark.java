@@ -0,0 +1,81 @@
+package util;
+
+import model.BenchmarkMaps;
+import model.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Laden einer Karte: {@link Map#fromJson(String)} als Ganzes sowie getrennt das Parsen der Datei und die
+ * Umwandlung mit Prüfung in {@link SerializableMap#toMapValid()}, im Vergleich dazu eine mit {@link MapFile}
+ * übersetzte Karte und eine Karte aus dem {@link MapCache}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapLoadBenchmark {
+
+    @Param({"10", "50"})
+    public int size;
+
+    @Param({"5", "20"})
+    public int piratePercent;
+
+    private String path;
+    private String compiledPath;
+    private SerializableMap parsed;
+    private MapCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        path = BenchmarkMaps.writeJson(BenchmarkMaps.openSea(size, piratePercent, 42));
+        parsed = SerializableMap.fromJSON(path);
+        Path compiled = Files.createTempFile("benchmark", MapFile.EXTENSION);
+        compiled.toFile().deleteOnExit();
+        MapFile.compile(path, compiled);
+        compiledPath = compiled.toString();
+        cache = new MapCache(1);
+    }
+
+    @Benchmark
+    public Map fromJson() throws IOException {
+        return Map.fromJson(path);
+    }
+
+    @Benchmark
+    public SerializableMap parse() throws IOException {
+        return SerializableMap.fromJSON(path);
+    }
+
+    @Benchmark
+    public Map toMapValid() {
+        return parsed.toMapValid();
+    }
+
+    @Benchmark
+    public Map compiled() throws IOException {
+        return MapFile.read(compiledPath);
+    }
+
+    @Benchmark
+    public Map cached() throws IOException {
+        return cache.load(path, false);
+    }
+}
@@ -0,0 +1,63 @@
+package util;
+
+import model.BenchmarkMaps;
+import model.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prüfung des Kartenlayouts: offenes Meer aus {@link BenchmarkMaps#openSea(int, int, long)} mit einem Abschnitt pro
+ * Zeile und ein Irrgarten aus {@link BenchmarkMaps#maze(int, long)} mit vielen kurzen Abschnitten pro Zeile.
+ * {@code toMap} ist die Umwandlung ohne Prüfung als Vergleich, {@code validate} die Prüfung des Layouts allein.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int size;
+
+    @Param({"openSea", "maze"})
+    public String layout;
+
+    private SerializableMap parsed;
+    private Map map;
+
+    @Setup
+    public void setup() {
+        parsed = new SerializableMap("maze".equals(layout) ? BenchmarkMaps.maze(size, 42)
+                : BenchmarkMaps.openSea(size, 0, 42));
+        map = parsed.toMap();
+    }
+
+    @Benchmark
+    public Map toMap() {
+        return parsed.toMap();
+    }
+
+    @Benchmark
+    public Map toMapValid() {
+        return parsed.toMapValid();
+    }
+
+    @Benchmark
+    public Map validate() {
+        ConnectivityValidator.validate(map);
+        return map;
+    }
+}
@@ -1,6 +1,7 @@
 package commands;
 
 import events.*;
+import metrics.ServerMetrics;
 import model.*;
 
 import java.util.ArrayList;
@@ -44,9 +45,14 @@ public abstract class Command {
             List<Event> eventList = new ArrayList<>();
             eventList.add(new RegistrationAbortedEvent());
             return eventList;
-        } else {
-            return handlePirates(map, exec(map, random, actionsLeft));
         }
+        boolean measured = ServerMetrics.isEnabled();
+        long start = measured ? System.nanoTime() : 0;
+        List<Event> eventList = handlePirates(map, exec(map, random, actionsLeft));
+        if (measured) {
+            ServerMetrics.get().recordCommand(getClass(), System.nanoTime() - start);
+        }
+        return eventList;
     }
 
     /**
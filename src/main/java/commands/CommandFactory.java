@@ -3,6 +3,8 @@ package commands;
 import model.Ship.ActorType;
 import model.Tile.Direction;
 
+import java.util.List;
+
 public interface CommandFactory<T> {
     T createRegister(String name, ActorType actorType);
 
@@ -25,4 +27,11 @@ public interface CommandFactory<T> {
     T createRestock(int amount);
 
     T createLeave();
+
+    T createResync();
+
+    /**
+     * @param commands die Commands des Plans in Ausführungsreihenfolge, ohne Register und ohne weitere Pläne
+     */
+    T createPlan(List<T> commands);
 }
@@ -3,6 +3,8 @@ package commands;
 import model.Ship.ActorType;
 import model.Tile.Direction;
 
+import java.util.List;
+
 public class OwnCommandFactory implements CommandFactory<Command> {
     @Override
     public Command createRegister(String name, ActorType actorType) {
@@ -58,4 +60,14 @@ public class OwnCommandFactory implements CommandFactory<Command> {
     public Command createLeave() {
         return new LeaveCommand();
     }
+
+    @Override
+    public Command createResync() {
+        return new ResyncCommand();
+    }
+
+    @Override
+    public Command createPlan(List<Command> commands) {
+        return new PlanCommand(commands);
+    }
 }
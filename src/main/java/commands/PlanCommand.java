@@ -0,0 +1,105 @@
+package commands;
+
+import events.*;
+import model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Mehrere Commands in einer Nachricht, typischerweise alle Aktionen eines Zyklus. Sie werden der Reihe nach so
+ * ausgeführt, als wären sie einzeln angekommen: jeder bekommt die übrigen Aktionen, verbraucht seine Aktionen und
+ * gegebenenfalls die Sturm-Strafe. Der Plan endet nach dem ersten fehlgeschlagenen Command, sobald die Aktionen des
+ * Zyklus aufgebraucht sind oder das Spiel endet. Die restlichen Commands verfallen.
+ * <p>
+ * Für die {@link controller.GameEngine} ist der Plan ein einzelner Schritt: sie zieht danach {@link #actionsUsed()}
+ * und die Sturm-Strafe des letzten ausgeführten Commands ab, so wie nach diesem Command allein.
+ */
+public class PlanCommand extends Command {
+    private final List<Command> commands;
+    private int actionsUsedInt;
+
+    public PlanCommand(List<? extends Command> commands) {
+        for (Command command : commands) {
+            if (command instanceof PlanCommand || command instanceof RegisterCommand) {
+                throw new IllegalArgumentException("Ein Plan darf keinen " + command + " enthalten!");
+            }
+        }
+        this.commands = List.copyOf(commands);
+    }
+
+    /**
+     * @return die Commands des Plans in Ausführungsreihenfolge
+     */
+    public List<Command> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Alle Aktionen der ausgeführten Commands samt der Sturm-Strafen zwischen ihnen. Die Strafe des letzten Commands
+     * steht danach noch am Schiff und wird vom Aufrufer abgezogen.
+     */
+    @Override
+    public int actionsUsed() {
+        return actionsUsedInt;
+    }
+
+    @Override
+    public List<Event> exec(Map map, Random random, int actionsLeft) {
+        Ship player = map.getClientShip();
+        List<Event> eventList = new ArrayList<>();
+        int left = actionsLeft;
+        this.actionsUsedInt = 0;
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            List<Event> events = command.execute(map, random, left);
+            eventList.addAll(events);
+            actionsUsedInt += command.actionsUsed();
+            if (i == commands.size() - 1 || events.stream().anyMatch(e -> e.shouldExit() || e instanceof CommandFailedEvent)
+                    || left - command.actionsUsed() - player.getStormPenalty() <= 0) {
+                break;
+            }
+            //Zwischenabrechnung wie nach einem einzelnen Command, es bleiben Aktionen übrig
+            left = left - command.actionsUsed() - player.getStormPenalty();
+            actionsUsedInt += player.getStormPenalty();
+            player.setStormPenalty(0);
+        }
+        return eventList;
+    }
+
+    /**
+     * Die Piraten auf dem Feld des Spielers hat schon jeder einzelne Command behandelt.
+     */
+    @Override
+    protected List<Event> handlePirates(Map map, List<Event> retlist) {
+        return retlist;
+    }
+
+    @Override
+    public boolean requiresGameStarted() {
+        return true;
+    }
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PlanCommand that = (PlanCommand) o;
+        return commands.equals(that.commands);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(commands);
+    }
+
+    @Override
+    public String toString() {
+        return "PlanCommand";
+    }
+}
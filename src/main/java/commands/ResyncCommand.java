@@ -0,0 +1,53 @@
+package commands;
+
+import events.*;
+import model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Fordert nach einem Reconnect den bisher bekannten Zustand erneut an: die eigene Position und alle Tiles,
+ * die der Client schon gesehen hat. Verbraucht keine Aktion.
+ */
+public class ResyncCommand extends Command {
+
+    @Override
+    public int actionsUsed() {
+        return 0;
+    }
+
+    @Override
+    public List<Event> exec(Map map, Random random, int actionsLeft) {
+        Coordinate position = map.getClientShip().getPosition();
+        List<Event> eventList = new ArrayList<>();
+        eventList.add(new MovedEvent(position.getxCoordinate(), position.getyCoordinate()));
+        eventList.add(new ResyncEvent());
+        return eventList;
+    }
+
+    @Override
+    public boolean requiresGameStarted() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o != null && getClass() == o.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash();
+    }
+
+    @Override
+    public String toString() {
+        return "ResyncCommand";
+    }
+}
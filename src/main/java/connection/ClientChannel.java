@@ -0,0 +1,28 @@
+package connection;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transportweg unterhalb einer {@link ClientConnection}: Gegenstück zum {@link ServerChannel} auf der Seite des
+ * Clients, liefert die Frames des Servers und nimmt fertig kodierte Frames für ihn entgegen.
+ */
+public interface ClientChannel extends AutoCloseable {
+
+    /**
+     * Blockiert bis zum nächsten Frame des Servers.
+     *
+     * @return die MessagePack-Payload des Frames
+     * @throws TimeoutException falls innerhalb des Timeouts kein Frame angekommen ist
+     */
+    byte[] receive() throws TimeoutException;
+
+    /**
+     * Versendet einen fertig kodierten Frame: die Bytes von {@code position} bis {@code limit}. Der Puffer gehört
+     * nach der Rückkehr wieder dem Aufrufer.
+     */
+    void send(ByteBuffer payload);
+
+    @Override
+    void close();
+}
@@ -11,13 +11,10 @@ import org.msgpack.core.MessagePackException;
 import org.msgpack.core.MessagePacker;
 import org.msgpack.core.MessageUnpacker;
 import org.msgpack.core.buffer.ArrayBufferInput;
-import org.zeromq.ZContext;
-import org.zeromq.ZMQ;
-import org.zeromq.ZMQException;
-import zmq.ZError;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.concurrent.TimeoutException;
 
@@ -45,16 +42,21 @@ public class ClientConnection<E> implements AutoCloseable {
         static final int SWIRLEFFECT = 16;
         static final int STORMEFFECT = 17;
         static final int COMMANDFAILED = 18;
+        static final int BATCH = 19;
     }
 
-    private final ZContext context;
-    private final ZMQ.Socket socket;
+    private final ClientChannel channel;
     private final ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
     private final ArrayBufferInput inputBuffer = new ArrayBufferInput(new byte[0]);
     private final MessagePacker packer;
     private final MessageUnpacker unpacker;
     private final EventFactory<? extends E> eventFactory;
+    private final int protocolVersion;
     private boolean closed;
+    private int batchRemaining;
+
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+    private static final FieldEffect[] FIELD_EFFECTS = FieldEffect.values();
 
     /**
      * Nutzen Sie eine Instanz dieser Klasse, um eine Verbindung zum Server aufzubauen.
@@ -65,26 +67,40 @@ public class ClientConnection<E> implements AutoCloseable {
      * @param eventFactory Ihre Implementierung einer EventFactory, mit welcher Sie Ihre eigenen Events erstellen können.
      */
     public ClientConnection(String host, int port, int timeout, EventFactory<? extends E> eventFactory) {
+        this(host, port, timeout, eventFactory, ServerConnection.PROTOCOL_LEGACY);
+    }
+
+    /**
+     * Wie oben, spricht aber die angegebene Protokollversion. Sie wird dem Server mit {@link #sendRegister} mitgeteilt.
+     * @param protocolVersion {@link ServerConnection#PROTOCOL_LEGACY}, {@link ServerConnection#PROTOCOL_COMPACT} oder {@link ServerConnection#PROTOCOL_DELTA}.
+     */
+    public ClientConnection(String host, int port, int timeout, EventFactory<? extends E> eventFactory, int protocolVersion) {
+        this(Transport.getDefault(), host, port, timeout, eventFactory, protocolVersion);
+    }
+
+    /**
+     * Wie oben, verbindet sich aber über den angegebenen Transport. Der Server muss denselben verwenden.
+     */
+    public ClientConnection(Transport transport, String host, int port, int timeout, EventFactory<? extends E> eventFactory, int protocolVersion) {
         Objects.requireNonNull(host);
         if (port <= 1023) throw new IllegalArgumentException("Portnummer zu niedrig! (Siehe https://de.wikipedia.org/wiki/Transmission_Control_Protocol#Allgemeines)");
         if (port >= 65535) throw new IllegalArgumentException("Portnummer zu groß! (Siehe https://de.wikipedia.org/wiki/Transmission_Control_Protocol#Allgemeines");
         if (timeout == 0) throw new IllegalArgumentException("Timeout darf nicht 0 sein!");
         if (timeout < -1 ) throw new IllegalArgumentException("Timeout darf nicht kleiner als -1 sein!");
+        if (protocolVersion < ServerConnection.PROTOCOL_LEGACY || protocolVersion > ServerConnection.PROTOCOL_DELTA) throw new IllegalArgumentException("Unbekannte Protokollversion!");
         this.eventFactory = Objects.requireNonNull(eventFactory);
+        this.protocolVersion = protocolVersion;
 
         unpacker = MessagePack.newDefaultUnpacker(inputBuffer);
         packer = MessagePack.newDefaultPacker(outputBuffer);
 
-        context = new ZContext();
-        socket = context.createSocket(ZMQ.DEALER);
-        socket.setReceiveTimeOut(timeout);
-        socket.connect(String.format("tcp://%s:%d", host, port));
+        channel = transport.connect(host, port, timeout);
     }
 
     @Override
     public void close() {
         if (!closed) {
-            context.destroy();
+            channel.close();
             closed = true;
         }
     }
@@ -93,19 +109,26 @@ public class ClientConnection<E> implements AutoCloseable {
      * Empfängt das nächste Event vom Spielserver und übersetzt es mittels Ihrer Factory in Ihre Implementierung des Events.
      */
     public final E nextEvent() throws TimeoutException {
-        byte[] data; // receive payload (a ROUTER socket does not send its identity)
-        try {
-            data = socket.recv();
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
+        if (batchRemaining > 0) { // rest of the current batch is still in the unpacker
+            batchRemaining--;
+            return decode();
         }
-        if (data == null) throw new TimeoutException();
+        byte[] data = channel.receive();
         inputBuffer.reset(data); // wrap unpacker around payload
+        return decode();
+    }
+
+    private E decode() {
         try {
             int type = unpacker.unpackInt();
             switch (type) {
+                case Events.BATCH: {
+                    if (batchRemaining > 0) throw new CommException("Verschachtelter Batch!");
+                    int count = unpacker.unpackInt();
+                    if (count <= 0) throw new CommException("Leerer Batch!");
+                    batchRemaining = count - 1;
+                    return decode();
+                }
                 case Events.REGISTRATIONABORTED: {
                     return eventFactory.createRegistrationAborted();
                 }
@@ -128,6 +151,17 @@ public class ClientConnection<E> implements AutoCloseable {
                     int y = unpacker.unpackInt();
                     boolean pirate = unpacker.unpackBoolean();
                     int treasure = unpacker.unpackInt();
+                    if (protocolVersion >= ServerConnection.PROTOCOL_COMPACT) {
+                        int connections = unpacker.unpackInt();
+                        FieldType fieldType = FIELD_TYPES[unpacker.unpackInt()];
+                        FieldEffect fieldEffect = FIELD_EFFECTS[unpacker.unpackInt()];
+                        return eventFactory.createMapUpdate(x, y, pirate, treasure,
+                                (connections & ServerConnection.Connections.NORTH) != 0,
+                                (connections & ServerConnection.Connections.EAST) != 0,
+                                (connections & ServerConnection.Connections.SOUTH) != 0,
+                                (connections & ServerConnection.Connections.WEST) != 0,
+                                fieldType, fieldEffect);
+                    }
                     boolean north = unpacker.unpackBoolean();
                     boolean east = unpacker.unpackBoolean();
                     boolean south = unpacker.unpackBoolean();
@@ -201,19 +235,25 @@ public class ClientConnection<E> implements AutoCloseable {
     }
 
 
+    private void packDirection(Direction direction) throws IOException {
+        if (protocolVersion >= ServerConnection.PROTOCOL_COMPACT) packer.packInt(direction.ordinal());
+        else packer.packString(direction.name());
+    }
+
     public final void sendRegister(String name, ActorType actorType) {
         try {
             packer.packInt(ServerConnection.Commands.REGISTER);
             packer.packString(name);
-            packer.packString(actorType.name());
+            if (protocolVersion >= ServerConnection.PROTOCOL_COMPACT) {
+                packer.packInt(actorType.ordinal());
+                packer.packInt(protocolVersion);
+            } else {
+                packer.packString(actorType.name());
+            }
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Register' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -222,15 +262,11 @@ public class ClientConnection<E> implements AutoCloseable {
     public final void sendMove(Direction direction) {
         try {
             packer.packInt(ServerConnection.Commands.MOVE);
-            packer.packString(direction.name());
+            packDirection(direction);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Move' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -240,13 +276,9 @@ public class ClientConnection<E> implements AutoCloseable {
         try {
             packer.packInt(ServerConnection.Commands.ENDTURN);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'EndTurn' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -256,13 +288,9 @@ public class ClientConnection<E> implements AutoCloseable {
         try {
             packer.packInt(ServerConnection.Commands.REPAIR);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Repair' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -271,15 +299,11 @@ public class ClientConnection<E> implements AutoCloseable {
     public final void sendFire(Direction direction) {
         try {
             packer.packInt(ServerConnection.Commands.FIRE);
-            packer.packString(direction.name());
+            packDirection(direction);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Fire' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -289,13 +313,9 @@ public class ClientConnection<E> implements AutoCloseable {
         try {
             packer.packInt(ServerConnection.Commands.PICKUP);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Pickup' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -305,13 +325,9 @@ public class ClientConnection<E> implements AutoCloseable {
         try {
             packer.packInt(ServerConnection.Commands.SELL);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Sell' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -322,13 +338,9 @@ public class ClientConnection<E> implements AutoCloseable {
             packer.packInt(ServerConnection.Commands.DROP);
             packer.packInt(index);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Drop' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -338,13 +350,9 @@ public class ClientConnection<E> implements AutoCloseable {
         try {
             packer.packInt(ServerConnection.Commands.RELOAD);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Reload' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -355,13 +363,9 @@ public class ClientConnection<E> implements AutoCloseable {
             packer.packInt(ServerConnection.Commands.RESTOCK);
             packer.packInt(amount);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Restock' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -371,15 +375,132 @@ public class ClientConnection<E> implements AutoCloseable {
         try {
             packer.packInt(ServerConnection.Commands.LEAVE);
             packer.flush();
-            socket.send(String.valueOf(outputBuffer.toByteArray()));
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Leave' Command konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
     }
+
+    /**
+     * Fordert ab {@link ServerConnection#PROTOCOL_DELTA} alle bisher gesehenen Tiles erneut an, z.B. nach einem Reconnect.
+     * Der Server antwortet mit Moved, einem MapUpdate pro bekanntem Tile und ActNow. Verbraucht keine Aktion.
+     */
+    public final void sendResync() {
+        try {
+            packer.packInt(ServerConnection.Commands.RESYNC);
+            packer.flush();
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
+        } catch (IOException | MessagePackException e) {
+            throw new CommException("Ein 'Resync' Command konnte nicht ins Wire-Format übersetzt werden!", e);
+        } finally {
+            outputBuffer.reset();
+        }
+    }
+
+    /**
+     * @return ein leerer Plan für {@link #sendPlan(Plan)}, er kodiert Richtungen in der Protokollversion dieser Verbindung.
+     */
+    public final Plan newPlan() {
+        return new Plan();
+    }
+
+    /**
+     * Versendet alle Commands des Plans in einer Nachricht. Der Server führt sie nacheinander aus, bis einer
+     * fehlschlägt, der Zyklus vorbei ist oder das Spiel endet, und antwortet mit allen Events in einem Frame.
+     * Es folgt genau ein ActNow, NextCycle oder GameEnd, ActNows zwischen den Commands entfallen.
+     */
+    public final void sendPlan(Plan plan) {
+        try {
+            packer.packInt(ServerConnection.Commands.PLAN);
+            packer.packInt(plan.size);
+            packer.flush();
+            plan.buffer.writeTo(outputBuffer);
+            channel.send(ByteBuffer.wrap(outputBuffer.toByteArray()));
+        } catch (IOException | MessagePackException e) {
+            throw new CommException("Ein 'Plan' Command konnte nicht ins Wire-Format übersetzt werden!", e);
+        } finally {
+            outputBuffer.reset();
+        }
+    }
+
+    /**
+     * Commands für {@link #sendPlan(Plan)}, in der Reihenfolge der Aufrufe. Höchstens
+     * {@value ServerConnection#MAX_PLAN} Commands, Register, Resync und weitere Pläne sind nicht möglich.
+     */
+    public final class Plan {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final MessagePacker planPacker = MessagePack.newDefaultPacker(buffer);
+        private int size;
+
+        private Plan() {
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Plan move(Direction direction) {
+            return add(ServerConnection.Commands.MOVE, direction, 0);
+        }
+
+        public Plan endTurn() {
+            return add(ServerConnection.Commands.ENDTURN, null, 0);
+        }
+
+        public Plan repair() {
+            return add(ServerConnection.Commands.REPAIR, null, 0);
+        }
+
+        public Plan fire(Direction direction) {
+            return add(ServerConnection.Commands.FIRE, direction, 0);
+        }
+
+        public Plan pickup() {
+            return add(ServerConnection.Commands.PICKUP, null, 0);
+        }
+
+        public Plan sell() {
+            return add(ServerConnection.Commands.SELL, null, 0);
+        }
+
+        public Plan drop(int index) {
+            return add(ServerConnection.Commands.DROP, null, index);
+        }
+
+        public Plan reload() {
+            return add(ServerConnection.Commands.RELOAD, null, 0);
+        }
+
+        public Plan restock(int amount) {
+            return add(ServerConnection.Commands.RESTOCK, null, amount);
+        }
+
+        public Plan leave() {
+            return add(ServerConnection.Commands.LEAVE, null, 0);
+        }
+
+        /**
+         * @param direction Argument von MOVE und FIRE
+         * @param argument  Argument von DROP und RESTOCK
+         */
+        private Plan add(int type, Direction direction, int argument) {
+            if (size == ServerConnection.MAX_PLAN) throw new IllegalStateException("Ein Plan hat höchstens " + ServerConnection.MAX_PLAN + " Commands!");
+            try {
+                planPacker.packInt(type);
+                if (direction != null) {
+                    if (protocolVersion >= ServerConnection.PROTOCOL_COMPACT) planPacker.packInt(direction.ordinal());
+                    else planPacker.packString(direction.name());
+                } else if (type == ServerConnection.Commands.DROP || type == ServerConnection.Commands.RESTOCK) {
+                    planPacker.packInt(argument);
+                }
+                planPacker.flush();
+            } catch (IOException | MessagePackException e) {
+                throw new CommException("Ein Command konnte nicht in den Plan übersetzt werden!", e);
+            }
+            size++;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package connection;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Einzelspieler-Channel über einem beliebigen {@link Transport.Endpoint}: der Endpoint läuft auf einem eigenen
+ * Daemon-Thread und legt die Frames des ersten Clients, der sich meldet, in eine Inbox. Frames aller anderen
+ * Clients werden verworfen.
+ */
+final class EndpointServerChannel implements ServerChannel, Transport.Endpoint.Receiver {
+    private static final byte[] FAILED = new byte[0];
+
+    private final Transport.Endpoint endpoint;
+    private final BlockingQueue<byte[]> inbox = new LinkedBlockingQueue<>();
+    private final int timeout;
+    private int peer;
+    private volatile boolean peerSet;
+    private volatile CommException failure;
+
+    EndpointServerChannel(Transport.Endpoint endpoint, int timeout) {
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+        Thread io = new Thread(() -> endpoint.run(this), "transport-io");
+        io.setDaemon(true);
+        io.start();
+    }
+
+    @Override
+    public void received(int peer, byte[] payload) {
+        if (!peerSet) {
+            this.peer = peer;
+            peerSet = true;
+        } else if (this.peer != peer) {
+            return;
+        }
+        inbox.add(payload);
+    }
+
+    @Override
+    public void failed(int peer, CommException e) {
+        if (peerSet && this.peer == peer) {
+            failure = e;
+            inbox.add(FAILED);
+        }
+    }
+
+    @Override
+    public byte[] receive() throws TimeoutException {
+        if (failure != null) throw failure;
+        byte[] data;
+        try {
+            data = timeout < 0 ? inbox.take() : inbox.poll(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommException("Warten auf den nächsten Command wurde unterbrochen!", e);
+        }
+        if (data == null) throw new TimeoutException();
+        if (data == FAILED) throw failure;
+        return data;
+    }
+
+    @Override
+    public byte[] poll() {
+        if (failure != null) throw failure;
+        byte[] data = inbox.poll();
+        if (data == FAILED) throw failure;
+        return data;
+    }
+
+    @Override
+    public void send(ByteBuffer payload) {
+        if (failure != null) throw failure;
+        if (!peerSet) throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+        //der Endpoint versendet auf seinem eigenen Thread, deshalb hier die einzige Kopie des Frames
+        byte[] copy = new byte[payload.remaining()];
+        payload.get(copy);
+        endpoint.send(peer, copy);
+    }
+
+    @Override
+    public void close() {
+        endpoint.close();
+    }
+}
@@ -0,0 +1,89 @@
+package connection;
+
+import org.msgpack.core.buffer.MessageBuffer;
+import org.msgpack.core.buffer.MessageBufferOutput;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Ziel des MessagePackers einer {@link ServerConnection}: schreibt direkt in ein wiederverwendetes Array, das
+ * anschließend ohne Zwischenkopie an den Socket übergeben wird.
+ * <p>
+ * Der Packer fordert nach jedem flush mit {@link #next(int)} einen neuen Puffer an. Solange der aktuelle Frame noch
+ * leer ist, bekommt er immer dieselbe Sicht auf das ganze Array zurück, im Normalfall wird also nichts allokiert.
+ * Nur ein Frame, der über mehrere Puffer des Packers hinausgeht (sehr lange Strings), braucht eigene Sichten und
+ * lässt das Array bei Bedarf wachsen.
+ */
+final class FrameBufferOutput implements MessageBufferOutput {
+    private byte[] array;
+    private MessageBuffer view;
+    private ByteBuffer frame;
+    private int size;
+
+    FrameBufferOutput(int capacity) {
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        array = array == null ? new byte[capacity] : Arrays.copyOf(array, capacity);
+        view = MessageBuffer.wrap(array);
+        frame = ByteBuffer.wrap(array);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > array.length) {
+            allocate(Math.max(array.length * 2, size + additional));
+        }
+    }
+
+    /**
+     * Liefert den aktuellen Frame als Sicht von Position 0 bis zum letzten geschriebenen Byte. Der Puffer bleibt
+     * Eigentum dieser Klasse und wird nach {@link #reset()} überschrieben.
+     */
+    ByteBuffer frame() {
+        frame.clear().limit(size);
+        return frame;
+    }
+
+    /**
+     * Verwirft den aktuellen Frame, das Array wird für den nächsten wiederverwendet.
+     */
+    void reset() {
+        size = 0;
+    }
+
+    @Override
+    public MessageBuffer next(int minimumSize) {
+        if (size == 0 && minimumSize <= array.length) {
+            return view;
+        }
+        ensureCapacity(minimumSize);
+        return MessageBuffer.wrap(array, size, array.length - size);
+    }
+
+    @Override
+    public void writeBuffer(int length) {
+        size += length; // der Packer hat bereits an die richtige Stelle geschrieben
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, array, size, length);
+        size += length;
+    }
+
+    @Override
+    public void add(byte[] bytes, int offset, int length) {
+        write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
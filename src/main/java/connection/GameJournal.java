@@ -0,0 +1,128 @@
+package connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Schreibt den Verkehr eines Spiels als binäres Journal, aus dem {@link JournalReplay} das Spiel wiederholen kann.
+ * <p>
+ * Aufbau: Kopf {@code [MAGIC:int][seed:long][Länge:int][Kartenpfad:UTF-8]}, danach nur noch angehängte Records
+ * {@code [Typ:byte][Länge:int][Inhalt]}. COMMAND und EVENT enthalten den Frame genau wie auf der Leitung,
+ * CYCLE die übrigen Zyklen als int, TIMEOUT ist leer.
+ * <p>
+ * Records werden in einem Puffer gesammelt und erst geschrieben, wenn er voll ist oder das Spiel endet. Ein Record
+ * kostet also im Normalfall nur eine Kopie in den Puffer.
+ */
+public final class GameJournal implements GameRecorder {
+    static final int MAGIC = 0x4D534A31; // "MSJ1"
+    static final byte COMMAND = 1;
+    static final byte EVENT = 2;
+    static final byte CYCLE = 3;
+    static final byte TIMEOUT = 4;
+    static final int RECORD_HEADER = 5;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private GameJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Legt das Journal an, eine vorhandene Datei wird überschrieben.
+     *
+     * @param mapPath Pfad der Karte, mit der {@link JournalReplay} das Spiel wiederholt
+     * @param seed    Seed des Servers
+     */
+    public static GameJournal create(Path file, String mapPath, long seed) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        GameJournal journal = new GameJournal(channel);
+        byte[] path = mapPath.getBytes(StandardCharsets.UTF_8);
+        journal.ensureRemaining(16 + path.length);
+        journal.buffer.putInt(MAGIC).putLong(seed).putInt(path.length).put(path);
+        return journal;
+    }
+
+    @Override
+    public void received(byte[] frame) {
+        record(COMMAND, frame, 0, frame.length);
+    }
+
+    @Override
+    public void sent(ByteBuffer frame) {
+        if (frame.hasArray()) {
+            record(EVENT, frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        } else {
+            ensureRemaining(RECORD_HEADER + frame.remaining());
+            buffer.put(EVENT).putInt(frame.remaining()).put(frame.duplicate());
+        }
+    }
+
+    @Override
+    public void cycle(int cyclesLeft) {
+        ensureRemaining(RECORD_HEADER + 4);
+        buffer.put(CYCLE).putInt(4).putInt(cyclesLeft);
+    }
+
+    @Override
+    public void timeout() {
+        ensureRemaining(RECORD_HEADER);
+        buffer.put(TIMEOUT).putInt(0);
+    }
+
+    private void record(byte type, byte[] data, int offset, int length) {
+        if (RECORD_HEADER + length > buffer.capacity()) {
+            ensureRemaining(RECORD_HEADER);
+            buffer.put(type).putInt(length);
+            write();
+            write(ByteBuffer.wrap(data, offset, length));
+            return;
+        }
+        ensureRemaining(RECORD_HEADER + length);
+        buffer.put(type).putInt(length).put(data, offset, length);
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            write();
+        }
+    }
+
+    private void write() {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer data) {
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            throw new CommException("Das Journal konnte nicht geschrieben werden!", e);
+        }
+    }
+
+    /**
+     * Schreibt den Rest des Puffers und schließt die Datei.
+     */
+    @Override
+    public void close() {
+        try {
+            write();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new CommException("Das Journal konnte nicht geschlossen werden!", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package connection;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Beobachtet den Verkehr einer {@link ServerConnection}: jeden empfangenen Command und jedes gesendete Event
+ * genau so, wie es über die Leitung geht, dazu den Beginn jedes Zyklus und Timeouts.
+ *
+ * @see GameJournal
+ */
+public interface GameRecorder {
+
+    /**
+     * Ein Command ist angekommen und wird gleich dekodiert.
+     */
+    void received(byte[] frame);
+
+    /**
+     * Ein Event wurde kodiert. Der Puffer gehört der Verbindung, Position und Limit dürfen nicht verändert werden.
+     * Im Batch-Modus wird jedes Event einzeln gemeldet, ohne den Kopf des Batch-Frames.
+     */
+    void sent(ByteBuffer frame);
+
+    /**
+     * Ein neuer Zyklus beginnt, direkt vor dessen NextCycle-Event.
+     */
+    void cycle(int cyclesLeft);
+
+    /**
+     * Der Client hat nicht rechtzeitig geantwortet.
+     */
+    void timeout();
+
+    /**
+     * Die Verbindung wurde geschlossen, danach kommt nichts mehr.
+     */
+    void close();
+}
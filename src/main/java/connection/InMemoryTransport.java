@@ -0,0 +1,149 @@
+package connection;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport innerhalb eines Prozesses: Frames wandern über Queues direkt zwischen Client- und Server-Thread, ohne
+ * Socket und ohne Kodierung eines Längenfelds. Der Port ist nur ein Name, unter dem sich Clients derselben JVM verbinden,
+ * der Host wird ignoriert. Gedacht für Benchmarks, Simulationen und eingebettete Clients.
+ */
+public final class InMemoryTransport implements Transport {
+    public static final String NAME = "memory";
+
+    private static final java.util.Map<Integer, MemoryEndpoint> BOUND = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Endpoint listen(int port) {
+        MemoryEndpoint endpoint = new MemoryEndpoint(port);
+        if (BOUND.putIfAbsent(port, endpoint) != null) {
+            throw new CommException(String.format("Port %d ist bereits belegt!", port));
+        }
+        return endpoint;
+    }
+
+    @Override
+    public ClientChannel connect(String host, int port, int timeout) {
+        MemoryEndpoint endpoint = BOUND.get(port);
+        if (endpoint == null) {
+            throw new CommException(String.format("Kein Server auf Port %d in diesem Prozess!", port));
+        }
+        return endpoint.connect(timeout);
+    }
+
+    /**
+     * Ein eingehender Frame samt Absender.
+     */
+    private static final class Incoming {
+        private static final Incoming CLOSE = new Incoming(0, null);
+
+        private final int peer;
+        private final byte[] payload;
+
+        private Incoming(int peer, byte[] payload) {
+            this.peer = peer;
+            this.payload = payload;
+        }
+    }
+
+    private static final class MemoryEndpoint implements Endpoint {
+        private final int port;
+        private final BlockingQueue<Incoming> inbox = new LinkedBlockingQueue<>();
+        private final java.util.Map<Integer, MemoryChannel> peers = new ConcurrentHashMap<>();
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        private MemoryEndpoint(int port) {
+            this.port = port;
+        }
+
+        private MemoryChannel connect(int timeout) {
+            MemoryChannel channel = new MemoryChannel(this, nextId.incrementAndGet(), timeout);
+            peers.put(channel.id, channel);
+            return channel;
+        }
+
+        @Override
+        public void run(Receiver receiver) {
+            try {
+                while (true) {
+                    Incoming next = inbox.take();
+                    if (next == Incoming.CLOSE) {
+                        return;
+                    }
+                    if (next.payload == null) {
+                        receiver.failed(next.peer, new CommException("Die andere Seite der Verbindung ist bereits geschlossen!"));
+                    } else {
+                        receiver.received(next.peer, next.payload);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                BOUND.remove(port, this);
+            }
+        }
+
+        @Override
+        public void send(int peer, byte[] payload) {
+            MemoryChannel target = peers.get(peer);
+            if (target == null) throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+            target.inbox.add(payload);
+        }
+
+        @Override
+        public void close() {
+            BOUND.remove(port, this);
+            inbox.add(Incoming.CLOSE);
+        }
+    }
+
+    private static final class MemoryChannel implements ClientChannel {
+        private final MemoryEndpoint endpoint;
+        private final int id;
+        private final int timeout;
+        private final BlockingQueue<byte[]> inbox = new LinkedBlockingQueue<>();
+
+        private MemoryChannel(MemoryEndpoint endpoint, int id, int timeout) {
+            this.endpoint = endpoint;
+            this.id = id;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public byte[] receive() throws TimeoutException {
+            byte[] data;
+            try {
+                data = timeout < 0 ? inbox.take() : inbox.poll(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CommException("Warten auf das nächste Event wurde unterbrochen!", e);
+            }
+            if (data == null) throw new TimeoutException();
+            return data;
+        }
+
+        @Override
+        public void send(ByteBuffer payload) {
+            byte[] copy = new byte[payload.remaining()];
+            payload.get(copy);
+            endpoint.inbox.add(new Incoming(id, copy));
+        }
+
+        @Override
+        public void close() {
+            if (endpoint.peers.remove(id, this)) {
+                endpoint.inbox.add(new Incoming(id, null));
+            }
+        }
+    }
+}
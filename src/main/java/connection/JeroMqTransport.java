@@ -0,0 +1,29 @@
+package connection;
+
+/**
+ * ZeroMQ in reinem Java (jeromq): ROUTER-Socket auf dem Server, DEALER-Socket beim Client. Standard-Transport und
+ * kompatibel zu jedem Client, der mit einer ZeroMQ-Bibliothek ein DEALER-Socket verbindet.
+ */
+public final class JeroMqTransport implements Transport {
+    public static final String NAME = "jeromq";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Endpoint listen(int port) {
+        return new ZmqEndpoint(port);
+    }
+
+    @Override
+    public ServerChannel bind(int port, int timeout) {
+        return new ZmqServerChannel(port, timeout);
+    }
+
+    @Override
+    public ClientChannel connect(String host, int port, int timeout) {
+        return new ZmqClientChannel(host, port, timeout);
+    }
+}
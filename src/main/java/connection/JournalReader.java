@@ -0,0 +1,131 @@
+package connection;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Liest ein mit {@link GameJournal} geschriebenes Journal Record für Record.
+ */
+public final class JournalReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final long seed;
+    private final String mapPath;
+    private byte type;
+    private ByteBuffer payload;
+
+    private JournalReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.flip();
+        fill(16);
+        if (buffer.getInt() != GameJournal.MAGIC) {
+            throw new CommException("Die Datei ist kein Journal!");
+        }
+        seed = buffer.getLong();
+        int length = buffer.getInt();
+        fill(length);
+        byte[] path = new byte[length];
+        buffer.get(path);
+        mapPath = new String(path, StandardCharsets.UTF_8);
+    }
+
+    public static JournalReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new JournalReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getMapPath() {
+        return mapPath;
+    }
+
+    /**
+     * Geht zum nächsten Record.
+     *
+     * @return false am Ende des Journals
+     * @throws EOFException falls das Journal mitten in einem Record endet
+     */
+    public boolean next() throws IOException {
+        if (!buffer.hasRemaining() && !read()) {
+            type = 0;
+            payload = null;
+            return false;
+        }
+        fill(GameJournal.RECORD_HEADER);
+        type = buffer.get();
+        int length = buffer.getInt();
+        fill(length);
+        payload = buffer.slice();
+        payload.limit(length);
+        buffer.position(buffer.position() + length);
+        return true;
+    }
+
+    /**
+     * @return Typ des aktuellen Records, einer der Typen aus {@link GameJournal}
+     */
+    byte type() {
+        return type;
+    }
+
+    /**
+     * @return Inhalt des aktuellen Records, gültig bis zum nächsten {@link #next()}
+     */
+    ByteBuffer payload() {
+        return payload;
+    }
+
+    /**
+     * Sorgt dafür, dass mindestens {@code bytes} ungelesene Bytes im Puffer liegen.
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (bytes > buffer.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(bytes);
+            grown.put(buffer);
+            grown.flip();
+            buffer = grown;
+        }
+        while (buffer.remaining() < bytes) {
+            if (!read()) {
+                throw new EOFException("Das Journal endet mitten in einem Record!");
+            }
+        }
+    }
+
+    /**
+     * Hängt weitere Bytes aus der Datei an die ungelesenen im Puffer an.
+     *
+     * @return false am Dateiende
+     */
+    private boolean read() throws IOException {
+        buffer.compact();
+        try {
+            return channel.read(buffer) > 0;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
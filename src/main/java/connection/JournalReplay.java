@@ -0,0 +1,216 @@
+package connection;
+
+import commands.CommandFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wiederholt ein Spiel aus einem {@link GameJournal}. Die von {@link #connect(CommandFactory)} gelieferte
+ * Verbindung spielt dem Server die aufgezeichneten Commands und Timeouts vor und vergleicht alles, was er
+ * sendet, Byte für Byte mit dem Journal. Bei der ersten Abweichung wirft sie eine {@link CommException}.
+ * <pre>{@code
+ * try (JournalReplay replay = JournalReplay.open(path)) {
+ *     new Server(Map.load(replay.getMapPath()), replay.getSeed(), replay.connect(factory)).startGame();
+ *     replay.verifyComplete();
+ * }
+ * }</pre>
+ */
+public final class JournalReplay implements AutoCloseable {
+    private final JournalReader reader;
+    private boolean current;
+    private long position;
+    private int commands;
+    private int events;
+    private int cycles;
+
+    private JournalReplay(JournalReader reader) throws IOException {
+        this.reader = reader;
+        advance();
+    }
+
+    public static JournalReplay open(Path journal) throws IOException {
+        JournalReader reader = JournalReader.open(journal);
+        try {
+            return new JournalReplay(reader);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    public long getSeed() {
+        return reader.getSeed();
+    }
+
+    public String getMapPath() {
+        return reader.getMapPath();
+    }
+
+    /**
+     * @return eine Verbindung ohne Socket, die das Journal abspielt und überprüft
+     */
+    public <C> ServerConnection<C> connect(CommandFactory<? extends C> commandFactory) {
+        ServerConnection<C> connection = new ServerConnection<>(new ReplayChannel(), commandFactory);
+        connection.setRecorder(new Verifier());
+        return connection;
+    }
+
+    /**
+     * @throws CommException falls das Journal noch Records enthält, die nicht wiederholt wurden
+     */
+    public void verifyComplete() {
+        if (current) {
+            throw mismatch("Ende des Spiels");
+        }
+    }
+
+    public int getCommands() {
+        return commands;
+    }
+
+    public int getEvents() {
+        return events;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void advance() {
+        try {
+            current = reader.next();
+            position++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean at(byte type) {
+        return current && reader.type() == type;
+    }
+
+    private void expect(byte type, String actual) {
+        if (!at(type)) {
+            throw mismatch(actual);
+        }
+    }
+
+    private CommException mismatch(String actual) {
+        String expected = current ? describe(reader.type(), reader.payload()) : "Ende des Journals";
+        return new CommException("Abweichung bei Record " + position + ": erwartet " + expected + ", erzeugt " + actual + "!");
+    }
+
+    private static String describe(byte type, ByteBuffer payload) {
+        switch (type) {
+            case GameJournal.COMMAND:
+                return "Command " + hex(payload);
+            case GameJournal.EVENT:
+                return "Event " + hex(payload);
+            case GameJournal.CYCLE:
+                return "Zyklus " + payload.getInt(payload.position());
+            case GameJournal.TIMEOUT:
+                return "Timeout";
+            default:
+                return "unbekannten Record " + type;
+        }
+    }
+
+    private static String hex(ByteBuffer data) {
+        StringBuilder hex = new StringBuilder("[");
+        for (int i = data.position(); i < data.limit(); i++) {
+            hex.append(String.format("%02x", data.get(i)));
+        }
+        return hex.append(']').toString();
+    }
+
+    /**
+     * Liefert dem Server die Commands des Journals. Ist der nächste Record ein Timeout, wartet der Server
+     * vergeblich, genau wie im aufgezeichneten Spiel.
+     */
+    private final class ReplayChannel implements ServerChannel {
+
+        @Override
+        public byte[] receive() throws TimeoutException {
+            byte[] frame = poll();
+            if (frame == null) {
+                throw new TimeoutException();
+            }
+            return frame;
+        }
+
+        @Override
+        public byte[] poll() {
+            if (at(GameJournal.COMMAND)) {
+                ByteBuffer payload = reader.payload();
+                byte[] frame = new byte[payload.remaining()];
+                payload.duplicate().get(frame);
+                return frame;
+            }
+            if (at(GameJournal.TIMEOUT) || !current) {
+                return null;
+            }
+            throw mismatch("Warten auf den nächsten Command");
+        }
+
+        @Override
+        public void send(ByteBuffer payload) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Vergleicht den Verkehr des wiederholten Spiels mit dem Journal.
+     */
+    private final class Verifier implements GameRecorder {
+
+        @Override
+        public void received(byte[] frame) {
+            expect(GameJournal.COMMAND, describe(GameJournal.COMMAND, ByteBuffer.wrap(frame)));
+            if (!reader.payload().equals(ByteBuffer.wrap(frame))) {
+                throw mismatch(describe(GameJournal.COMMAND, ByteBuffer.wrap(frame)));
+            }
+            commands++;
+            advance();
+        }
+
+        @Override
+        public void sent(ByteBuffer frame) {
+            if (!at(GameJournal.EVENT) || !reader.payload().equals(frame)) {
+                throw mismatch(describe(GameJournal.EVENT, frame));
+            }
+            events++;
+            advance();
+        }
+
+        @Override
+        public void cycle(int cyclesLeft) {
+            if (!at(GameJournal.CYCLE) || reader.payload().getInt(reader.payload().position()) != cyclesLeft) {
+                throw mismatch("Zyklus " + cyclesLeft);
+            }
+            cycles++;
+            advance();
+        }
+
+        @Override
+        public void timeout() {
+            expect(GameJournal.TIMEOUT, "Timeout");
+            advance();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package connection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zeichnet alle Spiele eines Serverprozesses in eine einzige, per mmap eingeblendete Ringdatei auf. Anders als
+ * {@link GameJournal} gibt es keinen Systemaufruf pro Record: ein Record ist nur eine Kopie in den Page Cache,
+ * den das Betriebssystem auch dann noch auf die Platte schreibt, wenn der Prozess abstürzt.
+ * <p>
+ * Aufbau: ein Kopf von {@value #FILE_HEADER} Byte, danach {@code segments} Segmente, die einzeln eingeblendet
+ * werden. Jedes Segment besteht aus Slots zu {@value #SLOT} Byte. Ein Record belegt einen oder mehrere
+ * aufeinanderfolgende Slots desselben Segments:
+ * {@code [Position+1:long][Session:long][Länge:int][Typ:byte][3 Byte frei][Inhalt]}, alles Little Endian.
+ * Die Position zählt die Slots seit dem Start und wird als Letztes geschrieben, erst damit gilt der Record als
+ * vollständig. Ist der Ring voll, überschreibt der nächste Record das älteste Segment.
+ * <p>
+ * Die Typen sind die von {@link GameJournal}, dazu OPEN mit {@code [seed:long][Kartenpfad:UTF-8]} und ein leeres
+ * CLOSE. Gelesen wird die Datei offline mit {@link RingReader}.
+ */
+public final class JournalRing implements Closeable {
+    static final int MAGIC = 0x4D53524E; // "MSRN"
+    static final int FILE_HEADER = 4096;
+    static final int SLOT = 64;
+    static final int RECORD_HEADER = 24;
+    static final byte OPEN = 5;
+    static final byte CLOSE = 6;
+    public static final int DEFAULT_SEGMENTS = 8;
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int slotsPerSegment;
+    private final int segmentShift;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLong sessions = new AtomicLong();
+
+    private JournalRing(FileChannel channel, MappedByteBuffer[] segments, int slotsPerSegment) {
+        this.channel = channel;
+        this.segments = segments;
+        this.slotsPerSegment = slotsPerSegment;
+        this.segmentShift = Integer.numberOfTrailingZeros(slotsPerSegment);
+    }
+
+    /**
+     * Legt den Ring mit {@link #DEFAULT_SEGMENTS} Segmenten zu je {@link #DEFAULT_SEGMENT_SIZE} Byte an.
+     */
+    public static JournalRing create(Path file) throws IOException {
+        return create(file, DEFAULT_SEGMENTS, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Legt den Ring an, eine vorhandene Datei wird überschrieben.
+     *
+     * @param segments    Anzahl der Segmente, eine Zweierpotenz
+     * @param segmentSize Größe eines Segments in Byte, eine Zweierpotenz ab {@value #SLOT}
+     */
+    public static JournalRing create(Path file, int segments, int segmentSize) throws IOException {
+        if (segments < 2 || Integer.bitCount(segments) != 1 || segmentSize < SLOT || Integer.bitCount(segmentSize) != 1) {
+            throw new IllegalArgumentException("invalid ring geometry: " + segments + " x " + segmentSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER);
+            header.order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC).putInt(SLOT).putInt(segmentSize).putInt(segments)
+                    .putLong(System.currentTimeMillis());
+            MappedByteBuffer[] mapped = new MappedByteBuffer[segments];
+            for (int i = 0; i < segments; i++) {
+                mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER + (long) i * segmentSize, segmentSize);
+            }
+            return new JournalRing(channel, mapped, segmentSize / SLOT);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Beginnt die Aufzeichnung eines neuen Spiels. Der Recorder darf immer nur von einem Thread zugleich benutzt
+     * werden, verschiedene Recorder desselben Rings aber parallel.
+     *
+     * @param mapPath Pfad der Karte, mit der {@link JournalReplay} das Spiel wiederholt
+     * @param seed    Seed des Servers
+     */
+    public GameRecorder open(String mapPath, long seed) {
+        Session session = new Session(sessions.incrementAndGet());
+        byte[] path = mapPath.getBytes(StandardCharsets.UTF_8);
+        long position = claim(8 + path.length);
+        ByteBuffer view = session.begin(position, OPEN, 8 + path.length);
+        view.putLong(seed).put(path);
+        session.commit(position);
+        return session;
+    }
+
+    /**
+     * Reserviert die Slots für einen Record. Passt er nicht mehr in das laufende Segment, beginnt er im nächsten;
+     * die übersprungenen Slots bleiben ungültig, weil ihre Positionen älter als ein ganzer Umlauf sind.
+     */
+    private long claim(int length) {
+        int slots = (RECORD_HEADER + length + SLOT - 1) / SLOT;
+        if (slots > slotsPerSegment) {
+            throw new CommException("Der Record ist mit " + length + " Byte zu groß für ein Segment des Rings!");
+        }
+        while (true) {
+            long current = next.get();
+            int inSegment = (int) current & (slotsPerSegment - 1);
+            long start = inSegment + slots <= slotsPerSegment ? current : current + slotsPerSegment - inSegment;
+            if (next.compareAndSet(current, start + slots)) {
+                return start;
+            }
+        }
+    }
+
+    /**
+     * Schreibt alle Segmente auf die Platte. Für einen Absturz des Prozesses ist das nicht nötig, nur für einen des
+     * Rechners.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Schreibt den Ring auf die Platte und schließt die Datei. Danach darf kein Recorder mehr schreiben.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Der Recorder eines Spiels. Er hält eigene Sichten auf die Segmente, damit Position und Limit nicht mit anderen
+     * Threads geteilt werden.
+     */
+    private final class Session implements GameRecorder {
+        private final long id;
+        private final ByteBuffer[] views = new ByteBuffer[segments.length];
+        private ByteBuffer view;
+        private int offset;
+
+        Session(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void received(byte[] frame) {
+            long position = claim(frame.length);
+            begin(position, GameJournal.COMMAND, frame.length).put(frame);
+            commit(position);
+        }
+
+        @Override
+        public void sent(ByteBuffer frame) {
+            long position = claim(frame.remaining());
+            ByteBuffer view = begin(position, GameJournal.EVENT, frame.remaining());
+            if (frame.hasArray()) {
+                view.put(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            } else {
+                int start = frame.position();
+                view.put(frame);
+                frame.position(start);
+            }
+            commit(position);
+        }
+
+        @Override
+        public void cycle(int cyclesLeft) {
+            long position = claim(4);
+            begin(position, GameJournal.CYCLE, 4).putInt(cyclesLeft);
+            commit(position);
+        }
+
+        @Override
+        public void timeout() {
+            long position = claim(0);
+            begin(position, GameJournal.TIMEOUT, 0);
+            commit(position);
+        }
+
+        @Override
+        public void close() {
+            long position = claim(0);
+            begin(position, CLOSE, 0);
+            commit(position);
+        }
+
+        /**
+         * Macht den Slot ungültig, schreibt den Kopf des Records und liefert die Sicht, positioniert auf den Inhalt.
+         */
+        ByteBuffer begin(long position, byte type, int length) {
+            int segment = (int) (position >>> segmentShift) & (segments.length - 1);
+            offset = ((int) position & (slotsPerSegment - 1)) * SLOT;
+            view = views[segment];
+            if (view == null) {
+                view = segments[segment].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                views[segment] = view;
+            }
+            LONGS.set(view, offset, 0L);
+            VarHandle.storeStoreFence(); // der alte Record muss ungültig sein, bevor er überschrieben wird
+            view.putLong(offset + 8, id).putInt(offset + 16, length).put(offset + 20, type);
+            view.position(offset + RECORD_HEADER);
+            return view;
+        }
+
+        /**
+         * Gibt den mit {@link #begin} angefangenen Record frei.
+         */
+        void commit(long position) {
+            LONGS.setRelease(view, offset, position + 1);
+        }
+    }
+}
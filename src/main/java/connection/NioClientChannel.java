@@ -0,0 +1,139 @@
+package connection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client-Seite von {@link NioTransport}. Der Socket ist nicht blockierend, gewartet wird mit je einem Selector
+ * fürs Lesen (mit Timeout) und fürs Schreiben.
+ */
+final class NioClientChannel implements ClientChannel {
+    private final SocketChannel channel;
+    private final Selector readable;
+    private final Selector writable;
+    private final int timeout;
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+    private final ByteBuffer[] writing = new ByteBuffer[2];
+    private ByteBuffer in = ByteBuffer.allocate(8192);
+    private boolean closed;
+
+    NioClientChannel(String host, int port, int timeout) {
+        this.timeout = timeout;
+        try {
+            channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            readable = Selector.open();
+            writable = Selector.open();
+            channel.register(readable, SelectionKey.OP_READ);
+            channel.register(writable, SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            throw new CommException(String.format("Verbindung zu %s:%d fehlgeschlagen!", host, port), e);
+        }
+        in.flip();
+    }
+
+    private static CommException translate(IOException e) {
+        return new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
+    }
+
+    @Override
+    public byte[] receive() throws TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            while (true) {
+                byte[] frame = nextFrame();
+                if (frame != null) {
+                    return frame;
+                }
+                in.compact();
+                int read = channel.read(in);
+                in.flip();
+                if (read < 0) {
+                    throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+                }
+                if (read > 0) {
+                    continue;
+                }
+                if (timeout < 0) {
+                    readable.select();
+                } else {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) throw new TimeoutException();
+                    readable.select(remaining);
+                }
+                readable.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            throw translate(e);
+        }
+    }
+
+    /**
+     * @return der nächste vollständige Frame im Puffer (im Lesemodus) oder null
+     */
+    private byte[] nextFrame() {
+        if (in.remaining() < 4) {
+            return null;
+        }
+        int length = in.getInt(in.position());
+        if (length < 0 || length > NioTransport.MAX_FRAME) {
+            throw new CommException("Ungültige Framelänge " + length + "!");
+        }
+        if (in.remaining() < 4 + length) {
+            if (4 + length > in.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                larger.put(in).flip();
+                in = larger;
+            }
+            return null;
+        }
+        in.getInt();
+        byte[] payload = new byte[length];
+        in.get(payload);
+        return payload;
+    }
+
+    @Override
+    public void send(ByteBuffer payload) {
+        header.clear();
+        header.putInt(payload.remaining()).flip();
+        writing[0] = header;
+        writing[1] = payload;
+        try {
+            while (true) {
+                channel.write(writing);
+                if (!payload.hasRemaining()) {
+                    return;
+                }
+                writable.select();
+                writable.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            throw translate(e);
+        } finally {
+            writing[1] = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                channel.close();
+                readable.close();
+                writable.close();
+            } catch (IOException ignored) {
+                // Verbindung ist ohnehin beendet
+            }
+        }
+    }
+}
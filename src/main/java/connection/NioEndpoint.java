@@ -0,0 +1,234 @@
+package connection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Seite von {@link NioTransport}: ein Selector für den Listen-Socket und alle Verbindungen. Die Nummer eines
+ * Clients wird beim Annehmen der Verbindung vergeben. Andere Threads legen ausgehende Frames in die Outbox des
+ * Clients und wecken den Selector, geschrieben wird nur auf dem I/O-Thread.
+ */
+final class NioEndpoint implements Transport.Endpoint {
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final java.util.Map<Integer, Peer> peers = new ConcurrentHashMap<>();
+    private final Queue<Peer> pending = new ConcurrentLinkedQueue<>();
+    private int nextId = 1;
+    private volatile boolean closed;
+
+    /**
+     * Eine angenommene Verbindung.
+     */
+    private static final class Peer {
+        private final int id;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private final ByteBuffer[] writing = new ByteBuffer[2];
+        private ByteBuffer in = ByteBuffer.allocate(8192);
+
+        private Peer(int id, SocketChannel channel, SelectionKey key) {
+            this.id = id;
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    NioEndpoint(int port) {
+        ZmqServerChannel.checkPort(port);
+        try {
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            server.bind(new InetSocketAddress(port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void run(Receiver receiver) {
+        try {
+            while (!closed) {
+                selector.select();
+                Peer peer;
+                while ((peer = pending.poll()) != null) {
+                    peer.scheduled.set(false);
+                    write(peer, receiver);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    peer = (Peer) key.attachment();
+                    if (key.isReadable()) {
+                        read(peer, receiver);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(peer, receiver);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Peer peer : peers.values()) {
+                closeQuietly(peer.channel);
+            }
+            closeQuietly(server);
+            closeQuietly(selector);
+        }
+    }
+
+    @Override
+    public void send(int peer, byte[] payload) {
+        Peer target = peers.get(peer);
+        if (target == null) throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+        target.outbox.add(payload);
+        if (target.scheduled.compareAndSet(false, true)) {
+            pending.add(target);
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Nimmt einen neuen Client an. Scheitert das, etwa weil keine Dateideskriptoren mehr frei sind oder der Client
+     * die Verbindung schon wieder zurückgesetzt hat, wird nur diese Verbindung verworfen, alle anderen laufen weiter.
+     */
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = server.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            Peer peer = new Peer(nextId++, channel, key);
+            key.attach(peer);
+            peers.put(peer.id, peer);
+        } catch (IOException e) {
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * Liest, was die Verbindung hergibt, und meldet jeden vollständigen Frame.
+     */
+    private void read(Peer peer, Receiver receiver) {
+        ByteBuffer in = peer.in;
+        try {
+            if (peer.channel.read(in) < 0) {
+                disconnect(peer, receiver, null);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(peer, receiver, e);
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length < 0 || length > NioTransport.MAX_FRAME) {
+                disconnect(peer, receiver, null);
+                return;
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            in.getInt();
+            byte[] payload = new byte[length];
+            in.get(payload);
+            receiver.received(peer.id, payload);
+        }
+        in.compact();
+        //ein angefangener Frame, der nicht in den Puffer passt: Puffer auf seine Größe bringen
+        if (in.position() >= 4 && 4 + in.getInt(0) > in.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(4 + in.getInt(0));
+            in.flip();
+            larger.put(in);
+            peer.in = larger;
+        }
+    }
+
+    /**
+     * Schreibt Frames aus der Outbox, bis sie leer ist oder der Socket voll. Im zweiten Fall geht es weiter, sobald
+     * der Selector die Verbindung als beschreibbar meldet.
+     */
+    private void write(Peer peer, Receiver receiver) {
+        if (!peer.key.isValid()) {
+            return;
+        }
+        ByteBuffer[] writing = peer.writing;
+        try {
+            while (true) {
+                if (writing[1] == null || !writing[1].hasRemaining()) {
+                    byte[] payload = peer.outbox.poll();
+                    if (payload == null) {
+                        writing[1] = null;
+                        peer.key.interestOps(SelectionKey.OP_READ);
+                        return;
+                    }
+                    peer.header.clear();
+                    peer.header.putInt(payload.length).flip();
+                    writing[0] = peer.header;
+                    writing[1] = ByteBuffer.wrap(payload);
+                }
+                peer.channel.write(writing);
+                if (writing[1].hasRemaining()) {
+                    peer.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            disconnect(peer, receiver, e);
+        }
+    }
+
+    private void disconnect(Peer peer, Receiver receiver, IOException cause) {
+        peer.key.cancel();
+        closeQuietly(peer.channel);
+        peers.remove(peer.id);
+        receiver.failed(peer.id, new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", cause));
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // Verbindung ist ohnehin verloren
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package connection;
+
+/**
+ * Reines TCP über Java NIO ohne ZeroMQ: jeder Frame ist ein 4-Byte-Längenfeld (big endian) gefolgt von der
+ * Payload. Der Server bedient alle Verbindungen mit einem Selector auf einem Thread, Nagle ist auf beiden Seiten
+ * abgeschaltet. Clients müssen ebenfalls diesen Transport verwenden.
+ */
+public final class NioTransport implements Transport {
+    public static final String NAME = "nio";
+    /**
+     * Größter zulässiger Frame, ein größeres Längenfeld beendet die Verbindung.
+     */
+    static final int MAX_FRAME = 16 << 20;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Endpoint listen(int port) {
+        return new NioEndpoint(port);
+    }
+
+    @Override
+    public ClientChannel connect(String host, int port, int timeout) {
+        return new NioClientChannel(host, port, timeout);
+    }
+}
@@ -0,0 +1,197 @@
+package connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Liest eine mit {@link JournalRing} geschriebene Ringdatei, auch nach einem Absturz des Servers, und setzt daraus
+ * die Spiele einzelner Sessions wieder zusammen.
+ * <p>
+ * Gültig ist ein Record, dessen Position zu seinem Slot passt und höchstens einen Umlauf hinter dem neuesten Record
+ * liegt. Alles andere sind Reste früherer Umläufe oder ein Record, der beim Absturz gerade geschrieben wurde.
+ */
+public final class RingReader {
+
+    private static final class Record {
+        final long position;
+        final byte type;
+        final byte[] payload;
+
+        Record(long position, byte type, byte[] payload) {
+            this.position = position;
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+    private final long startMillis;
+    private final Map<Long, List<Record>> sessions = new TreeMap<>();
+
+    private RingReader(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    public static RingReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, JournalRing.FILE_HEADER)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != JournalRing.MAGIC || header.getInt() != JournalRing.SLOT) {
+                throw new CommException("Die Datei ist kein Journal-Ring!");
+            }
+            int segmentSize = header.getInt();
+            int segments = header.getInt();
+            RingReader reader = new RingReader(header.getLong());
+            long totalSlots = (long) segments * (segmentSize / JournalRing.SLOT);
+
+            List<Long> sessionIds = new ArrayList<>();
+            List<Record> records = new ArrayList<>();
+            for (int i = 0; i < segments; i++) {
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                        JournalRing.FILE_HEADER + (long) i * segmentSize, segmentSize).order(ByteOrder.LITTLE_ENDIAN);
+                scan(segment, (long) i * (segmentSize / JournalRing.SLOT), totalSlots, sessionIds, records);
+            }
+
+            long newest = -1;
+            for (Record record : records) {
+                newest = Math.max(newest, record.position);
+            }
+            for (int i = 0; i < records.size(); i++) {
+                Record record = records.get(i);
+                if (record.position > newest - totalSlots) {
+                    reader.sessions.computeIfAbsent(sessionIds.get(i), id -> new ArrayList<>()).add(record);
+                }
+            }
+            for (List<Record> session : reader.sessions.values()) {
+                session.sort(Comparator.comparingLong(record -> record.position));
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * Liest alle Records eines Segments, das beim Slot {@code firstSlot} des Rings beginnt.
+     */
+    private static void scan(ByteBuffer segment, long firstSlot, long totalSlots, List<Long> sessionIds,
+                             List<Record> records) {
+        int slots = segment.capacity() / JournalRing.SLOT;
+        int slot = 0;
+        while (slot < slots) {
+            int offset = slot * JournalRing.SLOT;
+            long position = segment.getLong(offset) - 1;
+            int length = segment.getInt(offset + 16);
+            byte type = segment.get(offset + 20);
+            int used = length < 0 ? 0 : (JournalRing.RECORD_HEADER + length + JournalRing.SLOT - 1) / JournalRing.SLOT;
+            if (position < 0 || position % totalSlots != firstSlot + slot || used == 0 || slot + used > slots
+                    || type < GameJournal.COMMAND || type > JournalRing.CLOSE) {
+                slot++;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            segment.position(offset + JournalRing.RECORD_HEADER);
+            segment.get(payload);
+            sessionIds.add(segment.getLong(offset + 8));
+            records.add(new Record(position, type, payload));
+            slot += used;
+        }
+    }
+
+    /**
+     * @return Zeitpunkt, zu dem der Server den Ring angelegt hat, in Millisekunden seit 1970
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @return die IDs aller Sessions, von denen noch Records im Ring stehen, aufsteigend
+     */
+    public Set<Long> getSessions() {
+        return Collections.unmodifiableSet(sessions.keySet());
+    }
+
+    public int getCommands(long session) {
+        return count(session, GameJournal.COMMAND);
+    }
+
+    public int getEvents(long session) {
+        return count(session, GameJournal.EVENT);
+    }
+
+    public int getCycles(long session) {
+        return count(session, GameJournal.CYCLE);
+    }
+
+    /**
+     * @return true, falls der Anfang der Session noch nicht überschrieben wurde
+     */
+    public boolean hasStart(long session) {
+        return count(session, JournalRing.OPEN) > 0;
+    }
+
+    /**
+     * @return true, falls die Verbindung der Session regulär geschlossen wurde
+     */
+    public boolean hasEnd(long session) {
+        return count(session, JournalRing.CLOSE) > 0;
+    }
+
+    private int count(long session, byte type) {
+        int count = 0;
+        for (Record record : sessions.getOrDefault(session, Collections.emptyList())) {
+            if (record.type == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Schreibt die Session als {@link GameJournal}, das {@link JournalReplay} wiederholen kann.
+     *
+     * @throws CommException falls die Session unbekannt ist oder ihr Anfang bereits überschrieben wurde
+     */
+    public void writeJournal(long session, Path file) throws IOException {
+        List<Record> records = sessions.get(session);
+        if (records == null) {
+            throw new CommException("Session " + session + " steht nicht im Ring!");
+        }
+        if (records.get(0).type != JournalRing.OPEN) {
+            throw new CommException("Der Anfang von Session " + session + " wurde im Ring bereits überschrieben!");
+        }
+        ByteBuffer open = ByteBuffer.wrap(records.get(0).payload).order(ByteOrder.LITTLE_ENDIAN);
+        long seed = open.getLong();
+        String mapPath = StandardCharsets.UTF_8.decode(open).toString();
+        GameJournal journal = GameJournal.create(file, mapPath, seed);
+        for (Record record : records) {
+            switch (record.type) {
+                case GameJournal.COMMAND:
+                    journal.received(record.payload);
+                    break;
+                case GameJournal.EVENT:
+                    journal.sent(ByteBuffer.wrap(record.payload));
+                    break;
+                case GameJournal.CYCLE:
+                    journal.cycle(ByteBuffer.wrap(record.payload).order(ByteOrder.LITTLE_ENDIAN).getInt());
+                    break;
+                case GameJournal.TIMEOUT:
+                    journal.timeout();
+                    break;
+                default:
+                    break;
+            }
+        }
+        journal.close();
+    }
+}
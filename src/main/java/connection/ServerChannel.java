@@ -0,0 +1,36 @@
+package connection;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transportweg unterhalb einer {@link ServerConnection}. Ein Channel liefert die Payload-Frames genau eines
+ * Clients und nimmt die fertig kodierten Frames für diesen Client entgegen. Erzeugt von {@link Transport#bind}.
+ */
+public interface ServerChannel extends AutoCloseable {
+
+    /**
+     * Blockiert bis zum nächsten Frame des Clients.
+     *
+     * @return die MessagePack-Payload des Frames
+     * @throws TimeoutException falls innerhalb des Timeouts kein Frame angekommen ist
+     */
+    byte[] receive() throws TimeoutException;
+
+    /**
+     * Liefert den nächsten bereits angekommenen Frame, ohne zu blockieren.
+     *
+     * @return die MessagePack-Payload des Frames oder {@code null}, falls noch keiner angekommen ist
+     */
+    byte[] poll();
+
+    /**
+     * Versendet einen fertig kodierten Frame an den Client: die Bytes von {@code position} bis {@code limit}.
+     * Der Puffer gehört nach der Rückkehr wieder dem Aufrufer und wird für den nächsten Frame überschrieben,
+     * ein Channel, der später versendet, muss sich die Bytes also vorher kopieren.
+     */
+    void send(ByteBuffer payload);
+
+    @Override
+    void close();
+}
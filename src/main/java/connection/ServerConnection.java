@@ -1,6 +1,7 @@
 package connection;
 
 import commands.CommandFactory;
+import metrics.ServerMetrics;
 import model.Ship.ActorType;
 import model.Tile.Direction;
 import model.Tile.FieldEffect;
@@ -10,14 +11,13 @@ import org.msgpack.core.MessagePackException;
 import org.msgpack.core.MessagePacker;
 import org.msgpack.core.MessageUnpacker;
 import org.msgpack.core.buffer.ArrayBufferInput;
-import org.zeromq.ZContext;
-import org.zeromq.ZMQ;
-import org.zeromq.ZMQException;
-import zmq.ZError;
+import org.msgpack.value.ValueType;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeoutException;
 
@@ -36,18 +36,65 @@ public class ServerConnection<C> implements AutoCloseable {
         static final int RELOAD = 8;
         static final int RESTOCK = 9;
         static final int LEAVE = 10;
+        static final int RESYNC = 11;
+        static final int PLAN = 12;
     }
 
-    private final ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+    /**
+     * Bits der Verbindungs-Bitmaske eines MapUpdates ab {@link #PROTOCOL_COMPACT}.
+     */
+    static final class Connections {
+        private Connections() {}
+
+        static final int NORTH = 1;
+        static final int EAST = 2;
+        static final int SOUTH = 4;
+        static final int WEST = 8;
+    }
+
+    /**
+     * Ursprüngliches Protokoll: Enums als Namen, Verbindungen eines Tiles als vier Booleans. Standard für alle
+     * Clients, die bei REGISTER keine Version angeben.
+     */
+    public static final int PROTOCOL_LEGACY = 1;
+    /**
+     * Kompaktes Protokoll: Enums als Ordinal, die vier Verbindungen eines Tiles als eine Bitmaske.
+     */
+    public static final int PROTOCOL_COMPACT = 2;
+    /**
+     * Wie {@link #PROTOCOL_COMPACT}, MapUpdates werden aber nur für Tiles versendet, die sich seit dem letzten
+     * MapUpdate an den Client verändert haben. Mit RESYNC fordert der Client alle bekannten Tiles erneut an.
+     */
+    public static final int PROTOCOL_DELTA = 3;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+    private static final FieldEffect[] FIELD_EFFECTS = FieldEffect.values();
+
+    /**
+     * Höchstzahl der Commands in einem PLAN, mehr Aktionen hat kein Schiff in einem Zyklus.
+     */
+    static final int MAX_PLAN = 64;
+
+    private static final int BATCH_HEADER = 6; // BATCH als fixint + Anzahl als int32
+    private static final byte[][] FIELD_TYPE_NAMES = encodeNames(FieldType.values());
+    private static final byte[][] FIELD_EFFECT_NAMES = encodeNames(FieldEffect.values());
+
+    private final FrameBufferOutput outputBuffer = new FrameBufferOutput(8192);
+    private ByteBuffer batchBuffer = ByteBuffer.allocate(8192);
     private final ArrayBufferInput inputBuffer = new ArrayBufferInput(new byte[0]);
-    private final ZContext context;
-    private final ZMQ.Socket socket;
+    private final ServerChannel channel;
     private final MessagePacker packer;
     private final MessageUnpacker unpacker;
     private final CommandFactory<? extends C> commandFactory;
-    private boolean closed;
-    private boolean idSet = false;
-    private int id;
+    private volatile boolean closed;
+    private volatile Object attachment;
+    private boolean batching;
+    private int protocolVersion = PROTOCOL_LEGACY;
+    private VisionShadow shadow;
+    private int batched;
+    private GameRecorder recorder;
 
     /**
      * Nutzen Sie diese Klasse, um eine Verbindung zu einem Client aufzubauen.
@@ -57,124 +104,290 @@ public class ServerConnection<C> implements AutoCloseable {
      * @param commandFactory Ihre Implementierung einer CommandFactory, mit welcher Sie Ihre eigenen Commands erstellen können.
      */
     public ServerConnection(int port, int timeout, CommandFactory<? extends C> commandFactory) {
-        if (port <= 1023) throw new IllegalArgumentException("Portnummer zu niedrig! (Siehe https://de.wikipedia.org/wiki/Transmission_Control_Protocol#Allgemeines)");
-        if (port >= 65535) throw new IllegalArgumentException("Portnummer zu groß! (Siehe https://de.wikipedia.org/wiki/Transmission_Control_Protocol#Allgemeines");
+        this(Transport.getDefault(), port, timeout, commandFactory);
+    }
+
+    /**
+     * Wie oben, wartet aber über den angegebenen Transport auf den Client.
+     */
+    public ServerConnection(Transport transport, int port, int timeout, CommandFactory<? extends C> commandFactory) {
+        this(transport.bind(port, timeout), commandFactory);
+    }
+
+    ServerConnection(ServerChannel channel, CommandFactory<? extends C> commandFactory) {
+        this.channel = Objects.requireNonNull(channel);
         this.commandFactory = Objects.requireNonNull(commandFactory);
 
         unpacker = MessagePack.newDefaultUnpacker(inputBuffer);
         packer = MessagePack.newDefaultPacker(outputBuffer);
-
-        context = new ZContext();
-        socket = context.createSocket(ZMQ.ROUTER);
-        socket.setReceiveTimeOut(timeout);
-        socket.setRouterMandatory(true); // ensure errors from the commlib are caught
-        socket.bind(String.format("tcp://*:%d", port));
+        batchBuffer.position(BATCH_HEADER);
     }
 
     @Override
     public void close() {
         if (!closed) {
-            context.destroy();
-            closed = true;
+            try {
+                flush();
+            } finally {
+                channel.close();
+                closed = true;
+                if (recorder != null) {
+                    recorder.close();
+                }
+            }
         }
     }
 
-    private static int commId(byte[] identity) {
-        if (identity.length != 5) throw new IllegalArgumentException("Wrong ZMQ Identity!");
-        ByteBuffer buffer = ByteBuffer.wrap(identity, 1, 4);
-        return buffer.getInt();
+    public boolean isClosed() {
+        return closed;
     }
 
-    private static byte[] zmqId(int value) {
-        return new byte[] {
-                (byte)0,
-                (byte)(value >>> 24),
-                (byte)(value >>> 16),
-                (byte)(value >>> 8),
-                (byte)value};
+    /**
+     * Hängt ein beliebiges Objekt an diese Verbindung, z.B. das zugehörige Spiel einer Session.
+     */
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
     }
 
-    public final C nextCommand() throws TimeoutException {
-        byte[] identity; // receive sender identity
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Im Batch-Modus werden Events nicht einzeln verschickt, sondern gesammelt und erst mit {@link #flush()} als ein
+     * einziger Frame {@code [BATCH, n, Event 1, ..., Event n]} versendet. Die ClientConnection packt ihn transparent aus.
+     * Beim Abschalten wird ein noch offener Batch sofort versendet.
+     */
+    public void setBatching(boolean batching) {
+        if (!batching) {
+            flush();
+        }
+        this.batching = batching;
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    /**
+     * Meldet dem Recorder allen Verkehr dieser Verbindung, z.B. einem {@link GameJournal}. Der Recorder wird mit
+     * der Verbindung geschlossen.
+     */
+    public void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * @return der Recorder dieser Verbindung oder null
+     */
+    public GameRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * @return die Protokollversion, die der Client bei REGISTER angekündigt hat, sonst {@link #PROTOCOL_LEGACY}.
+     */
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    /**
+     * Versendet alle seit dem letzten Aufruf gesammelten Events als einen Frame. Ohne Batch-Modus passiert nichts.
+     */
+    public final void flush() {
+        if (batched == 0) {
+            return;
+        }
         try {
-            identity = socket.recv();
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
-        }
-        if (identity == null) throw new TimeoutException();
-        int tempId = commId(identity);
-        if (!idSet) {
-            id = tempId;
-            idSet = true;
-        } else if (id != tempId) {
-            return nextCommand();
-        }
-        byte[] data = socket.recv(); // receive payload
+            packer.packInt(ClientConnection.Events.BATCH);
+            packer.packInt(batched);
+            packer.flush();
+            //Header direkt vor die gesammelten Events schreiben, dafür ist vorne Platz reserviert
+            ByteBuffer header = outputBuffer.frame();
+            int start = BATCH_HEADER - header.remaining();
+            int end = batchBuffer.position();
+            batchBuffer.position(start);
+            batchBuffer.put(header);
+            batchBuffer.limit(end).position(start);
+            channel.send(batchBuffer);
+        } catch (IOException | MessagePackException e) {
+            throw new CommException("Ein Batch konnte nicht ins Wire-Format übersetzt werden!", e);
+        } finally {
+            outputBuffer.reset();
+            batchBuffer.clear().position(BATCH_HEADER);
+            batched = 0;
+        }
+    }
+
+    /**
+     * Die Namen der Enum-Konstanten einmal vorab in UTF-8, damit packString sie nicht bei jedem Event neu kodiert.
+     */
+    private static byte[][] encodeNames(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (Enum<?> value : values) {
+            names[value.ordinal()] = value.name().getBytes(StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Packt einen vorab kodierten Namen, auf dem Draht identisch zu {@code packer.packString(name)}.
+     */
+    private void packName(byte[] name) throws IOException {
+        packer.packRawStringHeader(name.length);
+        packer.writePayload(name);
+    }
+
+    /**
+     * Versendet das fertig gepackte Event im outputBuffer oder hängt es an den laufenden Batch an.
+     */
+    private void emit() {
+        ByteBuffer frame = outputBuffer.frame();
+        if (recorder != null) {
+            recorder.sent(frame);
+        }
+        if (batching) {
+            if (batchBuffer.remaining() < frame.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(batchBuffer.capacity() * 2, batchBuffer.position() + frame.remaining()));
+                batchBuffer.flip();
+                grown.put(batchBuffer);
+                batchBuffer = grown;
+            }
+            batchBuffer.put(frame);
+            batched++;
+        } else {
+            channel.send(frame);
+        }
+    }
+
+    public final C nextCommand() throws TimeoutException {
+        return decode(channel.receive());
+    }
+
+    /**
+     * Wie {@link #nextCommand()}, blockiert aber nicht.
+     *
+     * @return der nächste bereits angekommene Command oder {@code null}, falls noch keiner angekommen ist
+     */
+    public final C pollCommand() {
+        byte[] data = channel.poll();
+        return data == null ? null : decode(data);
+    }
+
+    private C decode(byte[] data) {
+        if (recorder != null) {
+            recorder.received(data);
+        }
         inputBuffer.reset(data); // wrap unpacker around payload
+        boolean measured = ServerMetrics.isEnabled();
+        long start = measured ? System.nanoTime() : 0;
         try {
-            int type = unpacker.unpackInt();
-            switch (type) {
-                case Commands.REGISTER: {
-                    String name = unpacker.unpackString();
-                    ActorType actorType = ActorType.valueOf(unpacker.unpackString());
-                    return commandFactory.createRegister(name, actorType);
-                }
-                case Commands.MOVE: {
-                    Direction direction = Direction.valueOf(unpacker.unpackString());
-                    return commandFactory.createMove(direction);
-                }
-                case Commands.ENDTURN: {
-                    return commandFactory.createEndTurn();
-                }
-                case Commands.REPAIR: {
-                    return commandFactory.createRepair();
-                }
-                case Commands.FIRE: {
-                    Direction direction = Direction.valueOf(unpacker.unpackString());
-                    return commandFactory.createFire(direction);
-                }
-                case Commands.PICKUP: {
-                    return commandFactory.createPickup();
-                }
-                case Commands.SELL: {
-                    return commandFactory.createSell();
-                }
-                case Commands.DROP: {
-                    int index = unpacker.unpackInt();
-                    return commandFactory.createDrop(index);
-                }
-                case Commands.RELOAD: {
-                    return commandFactory.createReload();
-                }
-                case Commands.RESTOCK: {
-                    int amount = unpacker.unpackInt();
-                    return commandFactory.createRestock(amount);
-                }
-                case Commands.LEAVE: {
-                    return commandFactory.createLeave();
-                }
-                default: throw new CommException("Unbekannter Commandtyp!");
+            C command = decodeCommand(commandFactory, unpacker.unpackInt(), false);
+            if (measured) {
+                ServerMetrics.get().recordDecode(System.nanoTime() - start);
             }
+            return command;
         } catch (IOException | MessagePackException e) {
             throw new CommException("Fehler beim Lesen des nächsten Commands!", e);
         }
     }
 
+    /**
+     * Liest die Argumente eines Commands. Generisch über den Typ der Factory, damit die Commands eines PLAN
+     * wieder an dieselbe Factory übergeben werden können.
+     *
+     * @param nested ob der Command innerhalb eines PLAN steht, dann sind REGISTER und PLAN nicht erlaubt
+     */
+    private <T> T decodeCommand(CommandFactory<T> commandFactory, int type, boolean nested) throws IOException {
+        switch (type) {
+            case Commands.REGISTER: {
+                if (nested) throw new CommException("REGISTER ist innerhalb eines Plans nicht erlaubt!");
+                String name = unpacker.unpackString();
+                ActorType actorType = unpackEnum(ACTOR_TYPES, ActorType.class);
+                if (unpacker.hasNext()) { // neuere Clients hängen ihre Protokollversion an
+                    int version = unpacker.unpackInt();
+                    if (version < PROTOCOL_LEGACY || version > PROTOCOL_DELTA) throw new CommException("Nicht unterstützte Protokollversion " + version + "!");
+                    protocolVersion = version;
+                    shadow = version >= PROTOCOL_DELTA ? new VisionShadow() : null;
+                }
+                return commandFactory.createRegister(name, actorType);
+            }
+            case Commands.MOVE: {
+                Direction direction = unpackEnum(DIRECTIONS, Direction.class);
+                return commandFactory.createMove(direction);
+            }
+            case Commands.ENDTURN: {
+                return commandFactory.createEndTurn();
+            }
+            case Commands.REPAIR: {
+                return commandFactory.createRepair();
+            }
+            case Commands.FIRE: {
+                Direction direction = unpackEnum(DIRECTIONS, Direction.class);
+                return commandFactory.createFire(direction);
+            }
+            case Commands.PICKUP: {
+                return commandFactory.createPickup();
+            }
+            case Commands.SELL: {
+                return commandFactory.createSell();
+            }
+            case Commands.DROP: {
+                int index = unpacker.unpackInt();
+                return commandFactory.createDrop(index);
+            }
+            case Commands.RELOAD: {
+                return commandFactory.createReload();
+            }
+            case Commands.RESTOCK: {
+                int amount = unpacker.unpackInt();
+                return commandFactory.createRestock(amount);
+            }
+            case Commands.LEAVE: {
+                return commandFactory.createLeave();
+            }
+            case Commands.RESYNC: {
+                return commandFactory.createResync();
+            }
+            case Commands.PLAN: {
+                if (nested) throw new CommException("Ein Plan darf keinen weiteren Plan enthalten!");
+                int size = unpacker.unpackInt();
+                if (size < 0 || size > MAX_PLAN) throw new CommException("Ungültige Größe " + size + " für einen Plan!");
+                List<T> commands = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    commands.add(decodeCommand(commandFactory, unpacker.unpackInt(), true));
+                }
+                return commandFactory.createPlan(commands);
+            }
+            default: throw new CommException("Unbekannter Commandtyp!");
+        }
+    }
+
+    /**
+     * Liest ein Enum unabhängig von der Protokollversion: als Ordinal (kompakt) oder als Name (legacy).
+     */
+    private <E extends Enum<E>> E unpackEnum(E[] values, Class<E> type) throws IOException {
+        if (unpacker.getNextFormat().getValueType() == ValueType.INTEGER) {
+            int ordinal = unpacker.unpackInt();
+            if (ordinal < 0 || ordinal >= values.length) throw new CommException("Unbekannter Wert für " + type.getSimpleName() + "!");
+            return values[ordinal];
+        }
+        String name = unpacker.unpackString();
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new CommException("Unbekannter Wert für " + type.getSimpleName() + "!", e);
+        }
+    }
+
 
     public final void sendRegistrationAborted() {
         try {
             packer.packInt(ClientConnection.Events.REGISTRATIONABORTED);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2 );
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'RegistrationAborted' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -190,14 +403,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(numPirates);
             packer.packInt(numHarbors);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2 );
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'GameStarted' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -209,41 +417,64 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(x);
             packer.packInt(y);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Moved' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
     }
 
+    /**
+     * Ab {@link #PROTOCOL_DELTA} wird das MapUpdate nur versendet, wenn sich das Tile seit dem letzten MapUpdate
+     * an diesen Client verändert hat.
+     */
     public final void sendMapUpdate(int x, int y, boolean pirate, int treasure, boolean north, boolean east, boolean south, boolean west, FieldType fieldType, FieldEffect fieldEffect) {
+        int connections = (north ? Connections.NORTH : 0) | (east ? Connections.EAST : 0)
+                | (south ? Connections.SOUTH : 0) | (west ? Connections.WEST : 0);
+        if (shadow != null && !shadow.update(x, y, VisionShadow.state(pirate, treasure, connections, fieldType.ordinal(), fieldEffect.ordinal()))) {
+            return; // der Client kennt diesen Zustand bereits
+        }
+        packMapUpdate(x, y, pirate, treasure, connections, fieldType, fieldEffect);
+    }
+
+    /**
+     * Versendet erneut ein MapUpdate für jedes Tile, das der Client bisher gesehen hat, jeweils mit dem zuletzt
+     * gesendeten Zustand. Damit kann ein Client nach einem Reconnect seine Karte wieder aufbauen.
+     * Nur ab {@link #PROTOCOL_DELTA}, vorher merkt sich die Verbindung nichts.
+     */
+    public final void resendKnownTiles() {
+        if (shadow == null) {
+            return;
+        }
+        shadow.forEachKnown((x, y, state) -> packMapUpdate(x, y, VisionShadow.isPirate(state), VisionShadow.treasure(state),
+                VisionShadow.connections(state), FIELD_TYPES[VisionShadow.fieldType(state)],
+                FIELD_EFFECTS[VisionShadow.fieldEffect(state)]));
+    }
+
+    private void packMapUpdate(int x, int y, boolean pirate, int treasure, int connections, FieldType fieldType, FieldEffect fieldEffect) {
         try {
             packer.packInt(ClientConnection.Events.MAPUPDATE);
             packer.packInt(x);
             packer.packInt(y);
             packer.packBoolean(pirate);
             packer.packInt(treasure);
-            packer.packBoolean(north);
-            packer.packBoolean(east);
-            packer.packBoolean(south);
-            packer.packBoolean(west);
-            packer.packString(fieldType.name());
-            packer.packString(fieldEffect.name());
+            if (protocolVersion >= PROTOCOL_COMPACT) {
+                packer.packInt(connections);
+                packer.packInt(fieldType.ordinal());
+                packer.packInt(fieldEffect.ordinal());
+            } else {
+                packer.packBoolean((connections & Connections.NORTH) != 0);
+                packer.packBoolean((connections & Connections.EAST) != 0);
+                packer.packBoolean((connections & Connections.SOUTH) != 0);
+                packer.packBoolean((connections & Connections.WEST) != 0);
+                packName(FIELD_TYPE_NAMES[fieldType.ordinal()]);
+                packName(FIELD_EFFECT_NAMES[fieldEffect.ordinal()]);
+            }
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'MapUpdate' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -254,14 +485,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.ACTNOW);
             packer.packInt(actionsLeft);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'ActNow' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -272,32 +498,25 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.GAMEEND);
             packer.packInt(score);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'GameEnd' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
     }
 
     public final void sendNextCycle(int cyclesLeft) {
+        if (recorder != null) {
+            recorder.cycle(cyclesLeft);
+        }
         try {
             packer.packInt(ClientConnection.Events.NEXTCYCLE);
             packer.packInt(cyclesLeft);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'NextCycle' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -308,14 +527,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.DAMAGED);
             packer.packInt(damage);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Damaged' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -325,14 +539,9 @@ public class ServerConnection<C> implements AutoCloseable {
         try {
             packer.packInt(ClientConnection.Events.ROBBED);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Robbed' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -343,14 +552,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.REPAIRED);
             packer.packInt(cost);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Repaired' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -361,14 +565,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.PICKEDUP);
             packer.packInt(value);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'PickedUp' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -378,14 +577,9 @@ public class ServerConnection<C> implements AutoCloseable {
         try {
             packer.packInt(ClientConnection.Events.HIT);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Hit' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -396,14 +590,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.SOLD);
             packer.packInt(gold);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Sold' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -414,14 +603,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.DROPPED);
             packer.packInt(value);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Dropped' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -431,14 +615,9 @@ public class ServerConnection<C> implements AutoCloseable {
         try {
             packer.packInt(ClientConnection.Events.RELOADED);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Reloaded' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -449,13 +628,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.RESTOCKED);
             packer.packInt(amount);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'Restocked' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -467,14 +642,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(x);
             packer.packInt(y);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'SwirlEffect' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -484,14 +654,9 @@ public class ServerConnection<C> implements AutoCloseable {
         try {
             packer.packInt(ClientConnection.Events.STORMEFFECT);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'StormEffect' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -502,14 +667,9 @@ public class ServerConnection<C> implements AutoCloseable {
             packer.packInt(ClientConnection.Events.COMMANDFAILED);
             packer.packString(message);
             packer.flush();
-            socket.send(zmqId(id), 0, zmqId(id).length, 2) ;
-            socket.send(outputBuffer.toByteArray(), 0);
+            emit();
         } catch (IOException | MessagePackException e) {
             throw new CommException("Ein 'CommandFailed' Event konnte nicht ins Wire-Format übersetzt werden!", e);
-        } catch (ZMQException e) {
-            if (e.getErrorCode() == ZError.EHOSTUNREACH)
-                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
-            else throw new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
         } finally {
             outputBuffer.reset();
         }
@@ -0,0 +1,187 @@
+package connection;
+
+import commands.CommandFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Betreibt beliebig viele unabhängige Spiele hinter einem einzigen {@link Transport.Endpoint}.
+ * <p>
+ * Jeder Client bekommt beim ersten Frame eine eigene {@link ServerConnection} (eine Session), die über den
+ * {@link SessionHandler} an die Spiellogik übergeben wird. Der Endpoint gehört ausschließlich dem Thread, der
+ * {@link #run()} ausführt: eingehende Frames werden in die Inbox der jeweiligen Session verteilt, ausgehende Frames
+ * der Spiel-Threads versendet der Endpoint selbst.
+ * <p>
+ * Endet eine Session, wird die Nummer ihres Clients wieder freigegeben. Meldet sich derselbe Client danach erneut,
+ * beginnt für ihn ein neues Spiel.
+ */
+public class SessionRouter<C> implements AutoCloseable {
+
+    /**
+     * Callbacks des I/O-Threads. Implementierungen dürfen hier nicht blockieren und sollten das Spiel deshalb
+     * auf einem eigenen Thread starten.
+     */
+    public interface SessionHandler<C> {
+        /**
+         * Wird für jede neu angelegte Session aufgerufen, bevor ihr erster Frame gemeldet wird.
+         */
+        void sessionOpened(ServerConnection<C> session);
+
+        /**
+         * Wird nach jedem Frame aufgerufen, der in der Inbox der Session gelandet ist.
+         * Ein Aufruf kann für mehrere Frames stehen, {@link ServerConnection#pollCommand()} liefert sie alle.
+         * Ebenso, wenn die Verbindung ausgefallen ist, {@link ServerConnection#pollCommand()} wirft dann eine
+         * {@link CommException}.
+         */
+        default void sessionReadable(ServerConnection<C> session) {
+        }
+    }
+
+    private static final byte[] FAILED = new byte[0];
+
+    private final Transport.Endpoint endpoint;
+    private final java.util.Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final int timeout;
+    private final CommandFactory<? extends C> commandFactory;
+    private final SessionHandler<C> handler;
+    private volatile boolean batching;
+
+    /**
+     * @param port           die Portnummer, auf der alle Clients angenommen werden.
+     * @param timeout        gibt in ms an, wie lange eine Session auf einen Command warten darf, bevor eine
+     *                       TimeoutException geworfen wird. Der besondere Wert -1 bedeutet, dass ewig gewartet werden darf.
+     * @param commandFactory Factory, mit der jede Session ihre Commands erzeugt.
+     * @param handler        bekommt jede neue Session übergeben.
+     */
+    public SessionRouter(int port, int timeout, CommandFactory<? extends C> commandFactory, SessionHandler<C> handler) {
+        this(Transport.getDefault(), port, timeout, commandFactory, handler);
+    }
+
+    /**
+     * Wie oben, nimmt die Clients aber über den angegebenen Transport an.
+     */
+    public SessionRouter(Transport transport, int port, int timeout, CommandFactory<? extends C> commandFactory,
+                         SessionHandler<C> handler) {
+        this.timeout = timeout;
+        this.commandFactory = Objects.requireNonNull(commandFactory);
+        this.handler = Objects.requireNonNull(handler);
+        this.endpoint = transport.listen(port);
+    }
+
+    /**
+     * I/O-Schleife: verteilt eingehende Frames und versendet ausgehende, bis {@link #close()} aufgerufen wird.
+     */
+    public void run() {
+        endpoint.run(new Transport.Endpoint.Receiver() {
+            @Override
+            public void received(int peer, byte[] payload) {
+                dispatch(peer, payload);
+            }
+
+            @Override
+            public void failed(int peer, CommException e) {
+                Session session = sessions.get(peer);
+                if (session != null) {
+                    session.fail(e);
+                    handler.sessionReadable(session.connection);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        endpoint.close();
+    }
+
+    /**
+     * Schaltet den Batch-Modus (siehe {@link ServerConnection#setBatching(boolean)}) für alle ab jetzt neuen Sessions.
+     */
+    public void setBatching(boolean batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * @return Anzahl der aktuell laufenden Sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void dispatch(int id, byte[] data) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            session = new Session(id);
+            sessions.put(id, session);
+            handler.sessionOpened(session.connection);
+        }
+        session.inbox.add(data);
+        handler.sessionReadable(session.connection);
+    }
+
+    /**
+     * Channel einer einzelnen Session: liest aus der eigenen Inbox und schreibt über den Endpoint des Routers.
+     */
+    private final class Session implements ServerChannel {
+        private final int id;
+        private final BlockingQueue<byte[]> inbox = new LinkedBlockingQueue<>();
+        private final ServerConnection<C> connection;
+        private volatile CommException failure;
+
+        private Session(int id) {
+            this.id = id;
+            this.connection = new ServerConnection<>(this, commandFactory);
+            this.connection.setBatching(batching);
+        }
+
+        private void fail(CommException e) {
+            failure = e;
+            inbox.add(FAILED); // weckt ein wartendes receive
+        }
+
+        @Override
+        public byte[] receive() throws TimeoutException {
+            if (failure != null) throw failure;
+            byte[] data;
+            try {
+                data = timeout < 0 ? inbox.take() : inbox.poll(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CommException("Warten auf den nächsten Command wurde unterbrochen!", e);
+            }
+            if (data == null) throw new TimeoutException();
+            if (data == FAILED) throw failure;
+            return data;
+        }
+
+        @Override
+        public byte[] poll() {
+            if (failure != null) throw failure;
+            byte[] data = inbox.poll();
+            if (data == FAILED) throw failure;
+            return data;
+        }
+
+        @Override
+        public void send(ByteBuffer payload) {
+            if (failure != null) throw failure;
+            //der I/O-Thread versendet erst später, deshalb hier die einzige Kopie des Frames
+            byte[] copy = new byte[payload.remaining()];
+            payload.get(copy);
+            endpoint.send(id, copy);
+        }
+
+        @Override
+        public void close() {
+            if (sessions.remove(id, this)) {
+                endpoint.sessionClosed(id);
+            }
+        }
+    }
+}
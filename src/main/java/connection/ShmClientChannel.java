@@ -0,0 +1,75 @@
+package connection;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client-Seite von {@link ShmTransport}: belegt beim Verbinden einen freien Platz und meldet ihn beim Schließen
+ * wieder ab.
+ */
+final class ShmClientChannel implements ClientChannel {
+    private final MappedByteBuffer buffer;
+    private final int slot;
+    private final ShmRing toServer;
+    private final ShmRing toClient;
+    private final ShmRing.Idler idler = new ShmRing.Idler();
+    private final int timeout;
+    private boolean closed;
+
+    ShmClientChannel(int port, int timeout) {
+        this.timeout = timeout;
+        buffer = ShmTransport.open(port);
+        int claimed = -1;
+        for (int slot = 0; slot < ShmTransport.SLOTS && claimed < 0; slot++) {
+            if (ShmTransport.claim(buffer, slot)) {
+                claimed = slot;
+            }
+        }
+        if (claimed < 0) {
+            throw new CommException(String.format("Alle %d Verbindungen auf Port %d sind belegt!", ShmTransport.SLOTS, port));
+        }
+        slot = claimed;
+        toServer = ShmTransport.toServer(buffer, slot);
+        toClient = ShmTransport.toClient(buffer, slot);
+    }
+
+    @Override
+    public byte[] receive() throws TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        idler.reset();
+        while (true) {
+            byte[] payload = toClient.poll();
+            if (payload != null) {
+                return payload;
+            }
+            if (!ShmTransport.isOpen(buffer)) {
+                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+            }
+            if (timeout >= 0 && System.nanoTime() - deadline >= 0) {
+                throw new TimeoutException();
+            }
+            idler.idle();
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer payload) {
+        idler.reset();
+        while (!toServer.offer(payload)) {
+            if (!ShmTransport.isOpen(buffer)) {
+                throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+            }
+            idler.idle();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            ShmTransport.setState(buffer, slot, ShmTransport.CLOSED);
+        }
+    }
+}
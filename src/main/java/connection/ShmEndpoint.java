@@ -0,0 +1,134 @@
+package connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Server-Seite von {@link ShmTransport}. Der I/O-Thread nimmt neu belegte Plätze an, liest die Ringe aller aktiven
+ * Plätze und gibt die Plätze abgemeldeter Clients wieder frei. Gesendet wird direkt vom Thread des Aufrufers in den
+ * Ring zum Client, ohne Umweg über den I/O-Thread.
+ * <p>
+ * Die Nummer eines Clients enthält außer seinem Platz eine Generation, damit Frames für einen früheren Client
+ * desselben Platzes nie beim neuen ankommen.
+ */
+final class ShmEndpoint implements Transport.Endpoint {
+    private static final int SLOT_BITS = 8;
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+    private final int port;
+    private final MappedByteBuffer buffer;
+    private final ShmRing[] toServer = new ShmRing[ShmTransport.SLOTS];
+    private final ShmRing[] toClient = new ShmRing[ShmTransport.SLOTS];
+    /**
+     * Nummer des aktiven Clients pro Platz, 0 für keinen.
+     */
+    private final AtomicIntegerArray peers = new AtomicIntegerArray(ShmTransport.SLOTS);
+    private final int[] generations = new int[ShmTransport.SLOTS];
+    private volatile boolean closed;
+
+    ShmEndpoint(int port) {
+        ZmqServerChannel.checkPort(port);
+        this.port = port;
+        buffer = ShmTransport.create(port);
+        for (int slot = 0; slot < ShmTransport.SLOTS; slot++) {
+            toServer[slot] = ShmTransport.toServer(buffer, slot);
+            toClient[slot] = ShmTransport.toClient(buffer, slot);
+        }
+    }
+
+    @Override
+    public void run(Receiver receiver) {
+        ShmRing.Idler idler = new ShmRing.Idler();
+        try {
+            while (!closed) {
+                boolean busy = false;
+                for (int slot = 0; slot < ShmTransport.SLOTS; slot++) {
+                    int state = ShmTransport.state(buffer, slot);
+                    int peer = peers.get(slot);
+                    if (state == ShmTransport.FREE) {
+                        continue;
+                    }
+                    if (peer == 0) {
+                        if (state == ShmTransport.CLOSED) {
+                            release(slot); // abgemeldet, bevor der Client angenommen war
+                            continue;
+                        }
+                        generations[slot] = Math.max(1, (generations[slot] + 1) & GENERATION_MASK);
+                        peer = (generations[slot] << SLOT_BITS) | slot;
+                        peers.set(slot, peer);
+                    }
+                    byte[] payload;
+                    while ((payload = toServer[slot].poll()) != null) {
+                        receiver.received(peer, payload);
+                        busy = true;
+                    }
+                    if (state == ShmTransport.CLOSED) {
+                        release(slot);
+                        receiver.failed(peer, new CommException("Die andere Seite der Verbindung ist bereits geschlossen!"));
+                        busy = true;
+                    }
+                }
+                if (busy) {
+                    idler.reset();
+                } else {
+                    idler.idle();
+                }
+            }
+        } finally {
+            ShmTransport.markClosed(buffer);
+            try {
+                Files.deleteIfExists(ShmTransport.path(port));
+            } catch (IOException ignored) {
+                // Clients sehen das Ende über die Markierung in der Datei
+            }
+        }
+    }
+
+    /**
+     * Gibt den Platz eines abgemeldeten Clients frei, sobald kein Sender mehr in seinen Ring schreibt. Die Nummer
+     * wird schon vor dem Lock gelöscht, damit ein Sender, der auf Platz im vollen Ring wartet, aufgibt.
+     */
+    private void release(int slot) {
+        peers.set(slot, 0);
+        synchronized (toClient[slot]) {
+            toServer[slot].reset();
+            toClient[slot].reset();
+        }
+        ShmTransport.setState(buffer, slot, ShmTransport.FREE);
+    }
+
+    @Override
+    public void send(int peer, byte[] payload) {
+        int slot = peer & ((1 << SLOT_BITS) - 1);
+        if (slot >= ShmTransport.SLOTS) throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+        ShmRing ring = toClient[slot];
+        ByteBuffer frame = ByteBuffer.wrap(payload);
+        ShmRing.Idler idler = null;
+        synchronized (ring) {
+            while (true) {
+                if (peers.get(slot) != peer || closed) {
+                    throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+                }
+                if (ring.offer(frame)) {
+                    return;
+                }
+                //Ring voll: warten, bis der Client liest, aber nicht auf einen Client, der sich schon abgemeldet hat
+                if (ShmTransport.state(buffer, slot) == ShmTransport.CLOSED) {
+                    throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+                }
+                if (idler == null) {
+                    idler = new ShmRing.Idler();
+                }
+                idler.idle();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
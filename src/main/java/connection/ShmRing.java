@@ -0,0 +1,156 @@
+package connection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ringpuffer für genau einen Schreiber und einen Leser in einem gemeinsam eingeblendeten Speicherbereich, die
+ * beiden können in verschiedenen Prozessen laufen.
+ * <p>
+ * Layout ab {@code base}: Leseposition (long) und Schreibposition (long) auf eigenen Cache-Lines, danach
+ * {@code capacity} Bytes Daten. Die Positionen wachsen monoton, der Index im Datenbereich ist die Position modulo
+ * {@code capacity}. Jeder Frame ist ein int mit seiner Länge und die Payload, auf 4 Bytes aufgerundet. Passt ein
+ * Frame nicht mehr vor das Ende, markiert {@link #PADDING} den Rest als übersprungen und der Frame beginnt wieder
+ * vorne. Die Schreibposition wird erst nach den Daten mit Release-Semantik veröffentlicht, die Leseposition erst
+ * nach dem Kopieren.
+ */
+final class ShmRing {
+    static final int HEADER = 128;
+    private static final int HEAD = 0;
+    private static final int TAIL = 64;
+    private static final int PADDING = -1;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer data;
+    private final int base;
+    private final int start;
+    private final int capacity;
+
+    /**
+     * @param buffer   die eingeblendete Datei
+     * @param base     Beginn des Rings, auf 64 Bytes ausgerichtet
+     * @param capacity Größe des Datenbereichs, eine Zweierpotenz
+     */
+    ShmRing(ByteBuffer buffer, int base, int capacity) {
+        this.buffer = buffer;
+        this.data = buffer.duplicate();
+        this.base = base;
+        this.start = base + HEADER;
+        this.capacity = capacity;
+    }
+
+    static int size(int capacity) {
+        return HEADER + capacity;
+    }
+
+    /**
+     * Größte Payload, die in einen Ring dieser Größe passt.
+     */
+    static int maxFrame(int capacity) {
+        return capacity / 2 - 4;
+    }
+
+    /**
+     * Schreibt die Bytes von {@code position} bis {@code limit} als einen Frame, nur vom Schreiber aufzurufen.
+     *
+     * @return false, falls gerade nicht genug Platz frei ist
+     */
+    boolean offer(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length > maxFrame(capacity)) {
+            throw new CommException(String.format("Frame mit %d Bytes ist zu groß für den Ring (höchstens %d)!",
+                    length, maxFrame(capacity)));
+        }
+        int record = align(4 + length);
+        long tail = (long) LONGS.getOpaque(buffer, base + TAIL);
+        int index = (int) (tail & (capacity - 1));
+        int skip = capacity - index < record ? capacity - index : 0;
+        long head = (long) LONGS.getAcquire(buffer, base + HEAD);
+        if (tail + skip + record - head > capacity) {
+            return false;
+        }
+        if (skip > 0) {
+            buffer.putInt(start + index, PADDING);
+            tail += skip;
+            index = 0;
+        }
+        buffer.putInt(start + index, length);
+        data.limit(start + index + 4 + length).position(start + index + 4);
+        data.put(payload);
+        LONGS.setRelease(buffer, base + TAIL, tail + record);
+        return true;
+    }
+
+    /**
+     * Liest den nächsten Frame, nur vom Leser aufzurufen.
+     *
+     * @return die Payload oder null, falls keiner bereitliegt
+     */
+    byte[] poll() {
+        long head = (long) LONGS.getOpaque(buffer, base + HEAD);
+        long tail = (long) LONGS.getAcquire(buffer, base + TAIL);
+        if (head == tail) {
+            return null;
+        }
+        int index = (int) (head & (capacity - 1));
+        int length = buffer.getInt(start + index);
+        if (length == PADDING) {
+            //hinter dem Padding folgt immer ein Frame, beide wurden zusammen veröffentlicht
+            head += capacity - index;
+            index = 0;
+            length = buffer.getInt(start);
+        }
+        byte[] payload = new byte[length];
+        data.limit(start + index + 4 + length).position(start + index + 4);
+        data.get(payload);
+        LONGS.setRelease(buffer, base + HEAD, head + align(4 + length));
+        return payload;
+    }
+
+    /**
+     * Leert den Ring. Nur aufzurufen, während weder Schreiber noch Leser auf ihn zugreifen.
+     */
+    void reset() {
+        LONGS.setRelease(buffer, base + HEAD, 0L);
+        LONGS.setRelease(buffer, base + TAIL, 0L);
+    }
+
+    private static int align(int size) {
+        return (size + 3) & ~3;
+    }
+
+    /**
+     * Warten ohne Benachrichtigung über Prozessgrenzen: erst aktiv, dann mit {@link Thread#yield()}, dann mit
+     * {@link LockSupport#parkNanos} und wachsender Pause bis {@link #MAX_PARK_NANOS}. Nach jedem Erfolg setzt
+     * {@link #reset()} wieder auf aktives Warten zurück. Mit nur einem Kern entfällt das aktive Warten, es würde
+     * genau den Thread verdrängen, auf den gewartet wird.
+     */
+    static final class Idler {
+        private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 200 : 0;
+        private static final int YIELDS = 200;
+        private static final long MIN_PARK_NANOS = 1_000;
+        private static final long MAX_PARK_NANOS = 1_000_000;
+
+        private int rounds;
+
+        void reset() {
+            rounds = 0;
+        }
+
+        void idle() {
+            if (rounds < SPINS) {
+                Thread.onSpinWait();
+            } else if (rounds < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                int parked = Math.min(rounds - SPINS - YIELDS, 10);
+                LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << parked));
+            }
+            rounds++;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package connection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transport über gemeinsamen Speicher für Clients auf demselben Host: Server und Clients blenden dieselbe Datei
+ * {@code myshipgame-<port>.shm} ein (unter {@code /dev/shm}, falls vorhanden, sonst im temporären Verzeichnis,
+ * abweichend mit {@code -Dmyshipgame.shm=<dir>}). Der Host beim Verbinden wird ignoriert.
+ * <p>
+ * Die Datei hat {@link #SLOTS} Plätze für Verbindungen. Ein Client belegt einen freien Platz per Compare-and-Set auf
+ * dessen Zustand und hat dort je einen {@link ShmRing} pro Richtung, mit genau einem Schreiber und einem Leser.
+ * Der Server bedient alle Plätze mit einem Thread, beide Seiten warten ohne Systemaufruf pro Frame, siehe
+ * {@link ShmRing.Idler}. Stirbt ein Client, ohne sich abzumelden, bleibt sein Platz bis zum Neustart des Servers
+ * belegt.
+ */
+public final class ShmTransport implements Transport {
+    public static final String NAME = "shm";
+
+    static final int MAGIC = 0x4D53484D; // "MSHM"
+    static final int VERSION = 1;
+    static final int SLOTS = 32;
+    static final int CAPACITY = 1 << 20;
+
+    //Kopf der Datei
+    private static final int FILE_HEADER = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int OPEN_OFFSET = 16;
+
+    //Zustand eines Platzes
+    static final int FREE = 0;
+    static final int CLAIMED = 1;
+    static final int CLOSED = 2;
+    private static final int SLOT_HEADER = 64;
+    private static final int SLOT_SIZE = SLOT_HEADER + 2 * ShmRing.size(CAPACITY);
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Endpoint listen(int port) {
+        return new ShmEndpoint(port);
+    }
+
+    @Override
+    public ClientChannel connect(String host, int port, int timeout) {
+        return new ShmClientChannel(port, timeout);
+    }
+
+    static Path path(int port) {
+        String dir = System.getProperty("myshipgame.shm");
+        if (dir == null) {
+            dir = Files.isDirectory(Paths.get("/dev/shm")) ? "/dev/shm" : System.getProperty("java.io.tmpdir");
+        }
+        return Paths.get(dir, "myshipgame-" + port + ".shm");
+    }
+
+    /**
+     * Legt die Datei für den Port neu an und blendet sie ein. Eine alte Datei wird vorher gelöscht, Clients mit
+     * der alten Einblendung sehen den neuen Server also nie.
+     */
+    static MappedByteBuffer create(int port) {
+        Path file = path(port);
+        try {
+            Files.deleteIfExists(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        FILE_HEADER + (long) SLOTS * SLOT_SIZE);
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putInt(SLOTS_OFFSET, SLOTS);
+                buffer.putInt(CAPACITY_OFFSET, CAPACITY);
+                INTS.setRelease(buffer, OPEN_OFFSET, 1);
+                return buffer;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws CommException falls auf diesem Host kein Server mit diesem Port und Format läuft
+     */
+    static MappedByteBuffer open(int port) {
+        Path file = path(port);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        } catch (IOException e) {
+            throw new CommException(String.format("Kein Server auf Port %d auf diesem Host!", port), e);
+        }
+        if (buffer.capacity() < FILE_HEADER || buffer.getInt(MAGIC_OFFSET) != MAGIC
+                || buffer.getInt(VERSION_OFFSET) != VERSION || buffer.getInt(SLOTS_OFFSET) != SLOTS
+                || buffer.getInt(CAPACITY_OFFSET) != CAPACITY) {
+            throw new CommException(String.format("%s ist keine passende Datei für Transport %s!", file, NAME));
+        }
+        if (!isOpen(buffer)) {
+            throw new CommException("Die andere Seite der Verbindung ist bereits geschlossen!");
+        }
+        return buffer;
+    }
+
+    static boolean isOpen(ByteBuffer buffer) {
+        return (int) INTS.getAcquire(buffer, OPEN_OFFSET) == 1;
+    }
+
+    static void markClosed(ByteBuffer buffer) {
+        INTS.setRelease(buffer, OPEN_OFFSET, 0);
+    }
+
+    static int state(ByteBuffer buffer, int slot) {
+        return (int) INTS.getAcquire(buffer, slotOffset(slot));
+    }
+
+    static void setState(ByteBuffer buffer, int slot, int state) {
+        INTS.setRelease(buffer, slotOffset(slot), state);
+    }
+
+    static boolean claim(ByteBuffer buffer, int slot) {
+        return INTS.compareAndSet(buffer, slotOffset(slot), FREE, CLAIMED);
+    }
+
+    /**
+     * @return der Ring vom Client zum Server im Platz
+     */
+    static ShmRing toServer(ByteBuffer buffer, int slot) {
+        return new ShmRing(buffer, slotOffset(slot) + SLOT_HEADER, CAPACITY);
+    }
+
+    /**
+     * @return der Ring vom Server zum Client im Platz
+     */
+    static ShmRing toClient(ByteBuffer buffer, int slot) {
+        return new ShmRing(buffer, slotOffset(slot) + SLOT_HEADER + ShmRing.size(CAPACITY), CAPACITY);
+    }
+
+    private static int slotOffset(int slot) {
+        return FILE_HEADER + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,107 @@
+package connection;
+
+import java.util.ServiceLoader;
+
+/**
+ * Transportschicht unterhalb des MessagePack-Codecs: überträgt fertig kodierte Frames zwischen Clients und Server,
+ * ohne ihren Inhalt zu kennen. Server und Clients müssen denselben Transport verwenden.
+ * <p>
+ * Implementierungen werden über {@link ServiceLoader} gefunden (Eintrag in
+ * {@code META-INF/services/connection.Transport}) und über ihren Namen ausgewählt, siehe {@link #forName(String)}.
+ * Mitgeliefert sind {@link JeroMqTransport} (Standard), {@link NioTransport}, {@link ShmTransport} und
+ * {@link InMemoryTransport}.
+ */
+public interface Transport {
+
+    /**
+     * Server-Seite für beliebig viele Clients. Jeder Client bekommt eine eigene Nummer, unter der seine Frames
+     * gemeldet und an ihn versendet werden.
+     */
+    interface Endpoint extends AutoCloseable {
+
+        /**
+         * Callbacks des I/O-Threads, sie dürfen nicht blockieren.
+         */
+        interface Receiver {
+            /**
+             * @param payload gehört ab jetzt dem Empfänger
+             */
+            void received(int peer, byte[] payload);
+
+            /**
+             * Die Verbindung zum Client ist nicht mehr benutzbar, z.B. weil er sie geschlossen hat.
+             */
+            void failed(int peer, CommException e);
+        }
+
+        /**
+         * I/O-Schleife: meldet eingehende Frames und versendet ausgehende, bis {@link #close()} aufgerufen wird.
+         * Gibt danach alle Ressourcen frei.
+         */
+        void run(Receiver receiver);
+
+        /**
+         * Versendet einen Frame an den Client, von beliebigen Threads aus. Der Endpoint übernimmt das Array.
+         */
+        void send(int peer, byte[] payload);
+
+        /**
+         * Die Session des Clients ist beendet, der Endpoint darf seinen Zustand zu ihm verwerfen. Ein späterer
+         * Frame desselben Clients eröffnet eine neue Session.
+         */
+        default void sessionClosed(int peer) {
+        }
+
+        /**
+         * Beendet {@link #run(Receiver)}, von beliebigen Threads aus.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * @return der Name, unter dem der Transport ausgewählt wird
+     */
+    String getName();
+
+    /**
+     * Nimmt Clients auf dem Port an.
+     */
+    Endpoint listen(int port);
+
+    /**
+     * Channel für genau einen Client: der erste, der einen Frame sendet, alle anderen werden ignoriert.
+     * Standardmäßig ein {@link #listen(int) Endpoint} mit eigenem I/O-Thread.
+     *
+     * @param timeout in ms, wie lange {@link ServerChannel#receive()} wartet, -1 für unbegrenzt
+     */
+    default ServerChannel bind(int port, int timeout) {
+        return new EndpointServerChannel(listen(port), timeout);
+    }
+
+    /**
+     * Verbindet einen Client mit dem Server.
+     *
+     * @param timeout in ms, wie lange {@link ClientChannel#receive()} wartet, -1 für unbegrenzt
+     */
+    ClientChannel connect(String host, int port, int timeout);
+
+    /**
+     * @return der Transport, den Server und Clients ohne ausdrückliche Auswahl verwenden
+     */
+    static Transport getDefault() {
+        return new JeroMqTransport();
+    }
+
+    /**
+     * @throws IllegalArgumentException falls kein Transport dieses Namens registriert ist
+     */
+    static Transport forName(String name) {
+        for (Transport transport : ServiceLoader.load(Transport.class)) {
+            if (transport.getName().equals(name)) {
+                return transport;
+            }
+        }
+        throw new IllegalArgumentException("Unbekannter Transport: " + name);
+    }
+}
@@ -0,0 +1,121 @@
+package connection;
+
+/**
+ * Merkt sich pro Tile den Zustand, den der Client zuletzt per MapUpdate erfahren hat, gepackt in ein long:
+ * Bit 0 Pirat, Bits 1-4 Verbindungen (siehe {@link ServerConnection.Connections}), Bits 5-8 FieldType,
+ * Bits 9-12 FieldEffect, Bit 15 bekannt, die oberen 32 Bit der Wert des Schatzes.
+ * <p>
+ * Die Kartengröße ist der Verbindung nicht bekannt. Die Zustände liegen deshalb in Blöcken zu {@value #CHUNK} x
+ * {@value #CHUNK} Tiles, die erst angelegt werden, wenn der Client dort etwas sieht; das Verzeichnis der Blöcke wächst
+ * mit der größten gesehenen Koordinate. Auf großen Karten kostet der Schatten so nur den erkundeten Teil.
+ */
+final class VisionShadow {
+    static final int CHUNK = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final long KNOWN = 1L << 15;
+
+    /**
+     * Empfänger für {@link #forEachKnown(Visitor)}.
+     */
+    interface Visitor {
+        void visit(int x, int y, long state);
+    }
+
+    private long[][] chunks = new long[0][];
+    private int chunksPerRow;
+    private int chunkRows;
+
+    static long state(boolean pirate, int treasure, int connections, int fieldType, int fieldEffect) {
+        return ((long) treasure << 32) | KNOWN | (pirate ? 1 : 0) | (connections << 1) | (fieldType << 5) | (fieldEffect << 9);
+    }
+
+    static boolean isPirate(long state) {
+        return (state & 1) != 0;
+    }
+
+    static int treasure(long state) {
+        return (int) (state >>> 32);
+    }
+
+    static int connections(long state) {
+        return (int) (state >>> 1) & 0xF;
+    }
+
+    static int fieldType(long state) {
+        return (int) (state >>> 5) & 0xF;
+    }
+
+    static int fieldEffect(long state) {
+        return (int) (state >>> 9) & 0xF;
+    }
+
+    /**
+     * Übernimmt den neuen Zustand eines Tiles.
+     *
+     * @return true, falls er sich vom zuletzt gesendeten unterscheidet und das MapUpdate also verschickt werden muss
+     */
+    boolean update(int x, int y, long state) {
+        if (x < 0 || y < 0) {
+            return true; // ungültige Koordinate: nicht verfolgen, aber wie bisher weitergeben
+        }
+        int cx = x >>> CHUNK_SHIFT;
+        int cy = y >>> CHUNK_SHIFT;
+        if (cx >= chunksPerRow || cy >= chunkRows) {
+            grow(cx, cy);
+        }
+        long[] chunk = chunks[cy * chunksPerRow + cx];
+        if (chunk == null) {
+            chunk = new long[CHUNK * CHUNK];
+            chunks[cy * chunksPerRow + cx] = chunk;
+        }
+        int index = offset(x, y);
+        if (chunk[index] == state) {
+            return false;
+        }
+        chunk[index] = state;
+        return true;
+    }
+
+    static boolean isKnown(long state) {
+        return (state & KNOWN) != 0;
+    }
+
+    /**
+     * Übergibt jedes bekannte Tile zeilenweise von oben links, Blöcke ohne gesehene Tiles werden übersprungen.
+     */
+    void forEachKnown(Visitor visitor) {
+        for (int cy = 0; cy < chunkRows; cy++) {
+            for (int row = 0; row < CHUNK; row++) {
+                for (int cx = 0; cx < chunksPerRow; cx++) {
+                    long[] chunk = chunks[cy * chunksPerRow + cx];
+                    if (chunk == null) {
+                        continue;
+                    }
+                    for (int column = 0; column < CHUNK; column++) {
+                        long state = chunk[row << CHUNK_SHIFT | column];
+                        if (isKnown(state)) {
+                            visitor.visit(cx << CHUNK_SHIFT | column, cy << CHUNK_SHIFT | row, state);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int offset(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    private void grow(int cx, int cy) {
+        int newPerRow = cx < chunksPerRow ? chunksPerRow : Math.max(cx + 1, chunksPerRow * 2);
+        int newRows = cy < chunkRows ? chunkRows : Math.max(cy + 1, chunkRows * 2);
+        long[][] grown = new long[newPerRow * newRows][];
+        for (int row = 0; row < chunkRows; row++) {
+            System.arraycopy(chunks, row * chunksPerRow, grown, row * newPerRow, chunksPerRow);
+        }
+        chunks = grown;
+        chunksPerRow = newPerRow;
+        chunkRows = newRows;
+    }
+}
@@ -0,0 +1,61 @@
+package connection;
+
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+import zmq.ZError;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * DEALER-Socket zum ROUTER des Servers. Der Server sendet ohne Identity-Frame, jeder Frame ist also direkt die
+ * Payload.
+ */
+final class ZmqClientChannel implements ClientChannel {
+    private final ZContext context;
+    private final ZMQ.Socket socket;
+    private boolean closed;
+
+    ZmqClientChannel(String host, int port, int timeout) {
+        context = new ZContext();
+        socket = context.createSocket(ZMQ.DEALER);
+        socket.setReceiveTimeOut(timeout);
+        socket.connect(String.format("tcp://%s:%d", host, port));
+    }
+
+    private static CommException translate(ZMQException e) {
+        if (e.getErrorCode() == ZError.EHOSTUNREACH)
+            return new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
+        else return new CommException(String.format("Clientseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
+    }
+
+    @Override
+    public byte[] receive() throws TimeoutException {
+        byte[] data;
+        try {
+            data = socket.recv();
+        } catch (ZMQException e) {
+            throw translate(e);
+        }
+        if (data == null) throw new TimeoutException();
+        return data;
+    }
+
+    @Override
+    public void send(ByteBuffer payload) {
+        try {
+            socket.send(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(), 0);
+        } catch (ZMQException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            context.destroy();
+            closed = true;
+        }
+    }
+}
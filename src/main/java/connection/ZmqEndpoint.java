@@ -0,0 +1,185 @@
+package connection;
+
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+import zmq.ZError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ein ROUTER-Socket für alle Clients, die Nummer eines Clients ist seine ZMQ-Identity. Der Socket gehört
+ * ausschließlich dem Thread in {@link #run}, ausgehende Frames der anderen Threads werden über eine Queue
+ * eingesammelt und der I/O-Thread über eine Pipe geweckt.
+ * <p>
+ * Die Identity eines Clients wird beim ersten Frame gemerkt und für alle Antworten wiederverwendet, bis seine
+ * Session mit {@link #sessionClosed(int)} endet.
+ */
+final class ZmqEndpoint implements Transport.Endpoint {
+
+    private static final class Outgoing {
+        private final byte[] identity;
+        private final byte[] payload;
+
+        private Outgoing(byte[] identity, byte[] payload) {
+            this.identity = identity;
+            this.payload = payload;
+        }
+    }
+
+    private final ZContext context;
+    private final ZMQ.Socket socket;
+    private final Pipe wakeup;
+    private final ByteBuffer wakeupBuffer = ByteBuffer.allocate(64);
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final Queue<Outgoing> outbox = new ConcurrentLinkedQueue<>();
+    private final java.util.Map<Integer, byte[]> identities = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    ZmqEndpoint(int port) {
+        ZmqServerChannel.checkPort(port);
+        try {
+            wakeup = Pipe.open();
+            wakeup.source().configureBlocking(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        context = new ZContext();
+        socket = context.createSocket(ZMQ.ROUTER);
+        socket.setRouterMandatory(true); // ensure errors from the commlib are caught
+        socket.bind(String.format("tcp://*:%d", port));
+    }
+
+    @Override
+    public void run(Receiver receiver) {
+        ZMQ.Poller poller = new ZMQ.Poller(2);
+        poller.register(socket, ZMQ.Poller.POLLIN);
+        poller.register(wakeup.source(), ZMQ.Poller.POLLIN);
+        try {
+            while (!closed) {
+                poller.poll(-1);
+                if (poller.pollin(1)) {
+                    drainWakeup();
+                }
+                flushOutbox(receiver);
+                if (poller.pollin(0)) {
+                    receiveAll(receiver);
+                }
+            }
+            flushOutbox(receiver);
+        } finally {
+            context.destroy();
+            try {
+                wakeup.source().close();
+                wakeup.sink().close();
+            } catch (IOException ignored) {
+                // Prozess wird ohnehin beendet
+            }
+        }
+    }
+
+    @Override
+    public void send(int peer, byte[] payload) {
+        byte[] identity = identities.get(peer);
+        if (identity == null) {
+            identity = ZmqServerChannel.zmqId(peer); // Session schon freigegeben, nur noch selten
+        }
+        outbox.add(new Outgoing(identity, payload));
+        wakeUp();
+    }
+
+    @Override
+    public void sessionClosed(int peer) {
+        identities.remove(peer);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        wakeUp();
+    }
+
+    /**
+     * Liest alle wartenden Frames. Nur ETERM (der Context wird beendet) beendet die I/O-Schleife, jeder andere Fehler
+     * wird dem betroffenen Client gemeldet, soweit er bekannt ist, und beim nächsten Poll geht es weiter.
+     */
+    private void receiveAll(Receiver receiver) {
+        while (true) {
+            byte[] identity = null;
+            byte[] data;
+            try {
+                identity = socket.recv(ZMQ.DONTWAIT);
+                if (identity == null) {
+                    return;
+                }
+                data = socket.recv(0);
+            } catch (ZMQException e) {
+                if (e.getErrorCode() == ZError.ETERM) {
+                    closed = true;
+                    return;
+                }
+                if (identity != null) {
+                    int id;
+                    try {
+                        id = ZmqServerChannel.commId(identity);
+                    } catch (IllegalArgumentException ignored) {
+                        return; // fremder Client ohne gültige Identity
+                    }
+                    receiver.failed(id, ZmqServerChannel.translate(e));
+                }
+                return;
+            }
+            int id;
+            try {
+                id = ZmqServerChannel.commId(identity);
+            } catch (IllegalArgumentException e) {
+                continue; // fremder Client ohne gültige Identity
+            }
+            if (!identities.containsKey(id)) {
+                identities.put(id, identity); // nur dieser Thread trägt ein
+            }
+            receiver.received(id, data);
+        }
+    }
+
+    private void flushOutbox(Receiver receiver) {
+        Outgoing next;
+        while ((next = outbox.poll()) != null) {
+            try {
+                socket.send(next.identity, 0, next.identity.length, ZMQ.SNDMORE);
+                socket.send(next.payload, 0);
+            } catch (ZMQException e) {
+                receiver.failed(ZmqServerChannel.commId(next.identity), ZmqServerChannel.translate(e));
+            }
+        }
+    }
+
+    private void wakeUp() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            try {
+                wakeup.sink().write(ByteBuffer.wrap(new byte[] {1}));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drainWakeup() {
+        try {
+            while (wakeup.source().read(wakeupBuffer) > 0) {
+                wakeupBuffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        wakeupPending.set(false);
+    }
+}
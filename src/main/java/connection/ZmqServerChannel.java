@@ -0,0 +1,111 @@
+package connection;
+
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMQException;
+import zmq.ZError;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Klassischer Einzelspieler-Channel: ein eigener ROUTER-Socket, der sich auf die erste Identity festlegt,
+ * die sich meldet. Frames aller anderen Identities werden verworfen.
+ */
+final class ZmqServerChannel implements ServerChannel {
+    private final ZContext context;
+    private final ZMQ.Socket socket;
+    private boolean closed;
+    private boolean idSet = false;
+    private int id;
+    private byte[] identity = zmqId(0);
+
+    ZmqServerChannel(int port, int timeout) {
+        checkPort(port);
+        context = new ZContext();
+        socket = context.createSocket(ZMQ.ROUTER);
+        socket.setReceiveTimeOut(timeout);
+        socket.setRouterMandatory(true); // ensure errors from the commlib are caught
+        socket.bind(String.format("tcp://*:%d", port));
+    }
+
+    static void checkPort(int port) {
+        if (port <= 1023) throw new IllegalArgumentException("Portnummer zu niedrig! (Siehe https://de.wikipedia.org/wiki/Transmission_Control_Protocol#Allgemeines)");
+        if (port >= 65535) throw new IllegalArgumentException("Portnummer zu groß! (Siehe https://de.wikipedia.org/wiki/Transmission_Control_Protocol#Allgemeines");
+    }
+
+    static int commId(byte[] identity) {
+        if (identity.length != 5) throw new IllegalArgumentException("Wrong ZMQ Identity!");
+        ByteBuffer buffer = ByteBuffer.wrap(identity, 1, 4);
+        return buffer.getInt();
+    }
+
+    static byte[] zmqId(int value) {
+        return new byte[] {
+                (byte)0,
+                (byte)(value >>> 24),
+                (byte)(value >>> 16),
+                (byte)(value >>> 8),
+                (byte)value};
+    }
+
+    static CommException translate(ZMQException e) {
+        if (e.getErrorCode() == ZError.EHOSTUNREACH)
+            return new CommException("Die andere Seite der Verbindung ist bereits geschlossen!", e);
+        else return new CommException(String.format("Serverseitiger Commlibfehler %d! Bitte wenden Sie sich an Ihren Tutor!", e.getErrorCode()), e);
+    }
+
+    @Override
+    public byte[] receive() throws TimeoutException {
+        byte[] data = next(0);
+        if (data == null) throw new TimeoutException();
+        return data;
+    }
+
+    @Override
+    public byte[] poll() {
+        return next(ZMQ.DONTWAIT);
+    }
+
+    private byte[] next(int flags) {
+        while (true) {
+            byte[] sender; // receive sender identity
+            byte[] data; // receive payload
+            try {
+                sender = socket.recv(flags);
+                if (sender == null) return null;
+                data = socket.recv(0);
+            } catch (ZMQException e) {
+                throw translate(e);
+            }
+            int tempId = commId(sender);
+            if (!idSet) {
+                id = tempId;
+                identity = zmqId(id); // Routing-Frame einmal pro Verbindung statt bei jedem send
+                idSet = true;
+            } else if (id != tempId) {
+                continue;
+            }
+            return data;
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer payload) {
+        try {
+            socket.send(identity, 0, identity.length, ZMQ.SNDMORE);
+            // der Socket kopiert den Ausschnitt beim Senden selbst, der Puffer ist danach wieder frei
+            socket.send(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(), 0);
+        } catch (ZMQException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            context.destroy();
+            closed = true;
+        }
+    }
+}
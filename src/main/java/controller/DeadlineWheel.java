@@ -0,0 +1,249 @@
+package controller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Zentrale Überwachung von Deadlines für sehr viele Spiele, als Hashed Timing Wheel: ein Ring aus
+ * {@code wheelSize} Buckets, von denen ein eigener Thread alle {@code tick} einen weiterrückt. Eine Deadline landet
+ * in dem Bucket, in dem sie fällig wird, und zählt die vollen Umdrehungen bis dahin herunter.
+ * <p>
+ * Anlegen und Abbrechen kosten unabhängig von der Zahl der Deadlines O(1): beides wird nur in eine Queue gestellt
+ * und vom Thread des Rads zu Beginn des nächsten Ticks eingearbeitet, die Buckets gehören allein ihm. Eine Deadline
+ * läuft nie zu früh ab, aber bis zu einem Tick zu spät.
+ * <p>
+ * Die Tasks laufen auf dem Thread des Rads und dürfen deshalb nicht blockieren, typischerweise planen sie nur
+ * Arbeit auf einem anderen Executor ein.
+ */
+public final class DeadlineWheel implements AutoCloseable {
+    /**
+     * Höchstzahl neuer Deadlines, die pro Tick eingearbeitet werden, damit ein Ansturm den Takt nicht aufhält.
+     */
+    private static final int MAX_TRANSFERS = 100_000;
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Deadline> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Deadline.class, "state");
+
+    /**
+     * Eine überwachte Deadline, abbrechbar von beliebigen Threads.
+     */
+    public final class Deadline {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state;
+        private long rounds;
+        private Bucket bucket;
+        private Deadline prev;
+        private Deadline next;
+
+        private Deadline(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Verhindert, dass der Task noch läuft, und gibt den Platz im Rad beim nächsten Tick frei.
+         *
+         * @return false, falls die Deadline schon abgelaufen oder abgebrochen war
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    /**
+     * Doppelt verkettete Liste der Deadlines eines Buckets, nur vom Thread des Rads benutzt.
+     */
+    private static final class Bucket {
+        private Deadline head;
+        private Deadline tail;
+
+        private void add(Deadline deadline) {
+            deadline.bucket = this;
+            deadline.prev = tail;
+            if (tail == null) {
+                head = deadline;
+            } else {
+                tail.next = deadline;
+            }
+            tail = deadline;
+        }
+
+        private void remove(Deadline deadline) {
+            if (deadline.prev == null) {
+                head = deadline.next;
+            } else {
+                deadline.prev.next = deadline.next;
+            }
+            if (deadline.next == null) {
+                tail = deadline.prev;
+            } else {
+                deadline.next.prev = deadline.prev;
+            }
+            deadline.bucket = null;
+            deadline.prev = null;
+            deadline.next = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Deadline> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Deadline> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean closed;
+    private volatile int size;
+    private long tick;
+
+    /**
+     * Ein Rad mit 512 Buckets zu je 10 ms, also 5,12 s pro Umdrehung.
+     */
+    public DeadlineWheel() {
+        this(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param tick      Auflösung des Rads, Deadlines laufen bis zu einen Tick zu spät ab
+     * @param unit      Einheit von {@code tick}
+     * @param wheelSize Anzahl der Buckets, wird auf eine Zweierpotenz aufgerundet. Deadlines bis
+     *                  {@code tick * wheelSize} kommen ohne weitere Umdrehung aus.
+     */
+    public DeadlineWheel(long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0) throw new IllegalArgumentException("Tick muss positiv sein: " + tick);
+        if (wheelSize <= 0 || wheelSize > 1 << 30) throw new IllegalArgumentException("Ungültige Radgröße: " + wheelSize);
+        this.tickNanos = unit.toNanos(tick);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, "deadline-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Führt den Task frühestens nach {@code delay} auf dem Thread des Rads aus, sofern die Deadline bis dahin nicht
+     * abgebrochen wurde. Nach {@link #close()} passiert nichts mehr.
+     */
+    public Deadline schedule(Runnable task, long delay, TimeUnit unit) {
+        Deadline deadline = new Deadline(task, System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay)));
+        if (closed) {
+            deadline.state = CANCELLED;
+        } else {
+            scheduled.add(deadline);
+        }
+        return deadline;
+    }
+
+    /**
+     * @return Anzahl der Deadlines, die gerade im Rad einsortiert sind, ohne die noch nicht eingearbeiteten.
+     * Nur eine Momentaufnahme.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hält das Rad an, noch nicht abgelaufene Deadlines verfallen.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (!closed) {
+            long tickEnd = (tick + 1) * tickNanos;
+            long now = System.nanoTime() - startNanos;
+            if (now < tickEnd) {
+                LockSupport.parkNanos(this, tickEnd - now);
+                continue;
+            }
+            removeCancelled();
+            transferScheduled();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+        scheduled.clear();
+        cancelled.clear();
+    }
+
+    private void removeCancelled() {
+        Deadline deadline;
+        while ((deadline = cancelled.poll()) != null) {
+            if (deadline.bucket != null) {
+                deadline.bucket.remove(deadline);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Sortiert neue Deadlines in ihren Bucket. Bereits fällige landen im aktuellen Bucket und laufen sofort ab.
+     */
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS; i++) {
+            Deadline deadline = scheduled.poll();
+            if (deadline == null) {
+                return;
+            }
+            if (deadline.state != PENDING) {
+                continue;
+            }
+            long due = Math.max(tick, (deadline.deadlineNanos + tickNanos - 1) / tickNanos - 1);
+            deadline.rounds = (due - tick) / wheel.length;
+            wheel[(int) (due & mask)].add(deadline);
+            size++;
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Deadline deadline = bucket.head;
+        while (deadline != null) {
+            Deadline next = deadline.next;
+            if (deadline.state != PENDING) {
+                bucket.remove(deadline);
+                size--;
+            } else if (deadline.rounds <= 0) {
+                bucket.remove(deadline);
+                size--;
+                if (STATE.compareAndSet(deadline, PENDING, EXPIRED)) {
+                    try {
+                        deadline.task.run();
+                    } catch (RuntimeException e) {
+                        //ein fehlerhafter Task darf das Rad nicht anhalten
+                        worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+                    }
+                }
+            } else {
+                deadline.rounds--;
+            }
+            deadline = next;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package controller;
+
+import commands.Command;
+import events.*;
+import metrics.ServerMetrics;
+import model.*;
+import model.Tile.Direction;
+import model.Tile.FieldType;
+import model.Tile.FieldEffect;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Die Spielregeln eines einzelnen Spiels ohne Netzwerk: nimmt Commands entgegen und liefert die daraus entstehenden
+ * Events als Liste zurück, statt sie zu versenden. Jede Engine hat ihre eigene Map und ihr eigenes Random, beliebig
+ * viele Engines können also unabhängig voneinander (auch parallel) laufen, etwa um Bots offline zu bewerten.
+ * <p>
+ * Der {@link Server} verbindet eine Engine mit einer {@link connection.ServerConnection}. Eine Simulation ruft
+ * {@link #handle(Command)} direkt auf, bis {@link #isFinished()} gilt:
+ * <pre>{@code
+ * GameEngine engine = new GameEngine(map, seed);
+ * List<Event> events = engine.handle(factory.createRegister("bot", ActorType.BARQUE));
+ * while (!engine.isFinished()) {
+ *     events = engine.handle(bot.nextCommand(engine.getMap(), events));
+ * }
+ * }</pre>
+ */
+public class GameEngine {
+    private final Map map;
+    private final GameRandom random;
+    private int actionsLeft;
+    private boolean registered;
+    private boolean finished;
+    private List<Event> events;
+
+    /**
+     * @param map  Karte, die Engine verändert sie während des Spiels
+     * @param seed Seed für das Random dieses Spiels
+     */
+    public GameEngine(Map map, long seed) {
+        this.map = map;
+        this.random = new GameRandom(seed);
+    }
+
+    /**
+     * Setzt ein gesichertes Spiel fort, etwa nach einem Neustart des Servers.
+     *
+     * @param map Karte im Zustand des Snapshots, z.B. aus {@link MapSnapshot#toMap()}
+     */
+    public GameEngine(Map map, Snapshot snapshot) {
+        this.map = map;
+        this.random = new GameRandom(0);
+        restoreCounters(snapshot);
+    }
+
+    /**
+     * Zustand einer Engine zwischen zwei Commands: Karte, Random und Zähler. Unveränderlich, kann also beliebig oft
+     * wiederhergestellt werden.
+     */
+    public static final class Snapshot {
+        private final MapSnapshot map;
+        private final long randomState;
+        private final int actionsLeft;
+        private final boolean registered;
+        private final boolean finished;
+
+        private Snapshot(MapSnapshot map, long randomState, int actionsLeft, boolean registered, boolean finished) {
+            this.map = map;
+            this.randomState = randomState;
+            this.actionsLeft = actionsLeft;
+            this.registered = registered;
+            this.finished = finished;
+        }
+
+        public MapSnapshot getMap() {
+            return map;
+        }
+
+        /**
+         * Format: {@code [Random:long][actionsLeft:int][registriert:byte][vorbei:byte]}, danach
+         * {@link MapSnapshot#toBytes()}.
+         */
+        public byte[] toBytes() {
+            byte[] mapBytes = map.toBytes();
+            return ByteBuffer.allocate(14 + mapBytes.length).putLong(randomState).putInt(actionsLeft)
+                    .put((byte) (registered ? 1 : 0)).put((byte) (finished ? 1 : 0)).put(mapBytes).array();
+        }
+
+        public static Snapshot fromBytes(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long randomState = buffer.getLong();
+            int actionsLeft = buffer.getInt();
+            boolean registered = buffer.get() != 0;
+            boolean finished = buffer.get() != 0;
+            byte[] mapBytes = new byte[buffer.remaining()];
+            buffer.get(mapBytes);
+            return new Snapshot(MapSnapshot.fromBytes(mapBytes), randomState, actionsLeft, registered, finished);
+        }
+    }
+
+    /**
+     * Sichert den Zustand zwischen zwei Commands, für Suchen über mögliche Züge oder zum Fortsetzen nach einem
+     * Neustart.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(map.snapshot(), random.getState(), actionsLeft, registered, finished);
+    }
+
+    /**
+     * Setzt Karte, Random und Zähler auf einen Snapshot dieser Engine zurück.
+     */
+    public void restore(Snapshot snapshot) {
+        map.restore(snapshot.map);
+        restoreCounters(snapshot);
+    }
+
+    private void restoreCounters(Snapshot snapshot) {
+        random.setState(snapshot.randomState);
+        actionsLeft = snapshot.actionsLeft;
+        registered = snapshot.registered;
+        finished = snapshot.finished;
+    }
+
+    /**
+     * Ein einzelner Schritt des Spielablaufs, ausgelöst durch einen Command des Spielers.
+     * 1. Vor der Registrierung: RegisterCommand ausführen, ersten Zyklus beginnen
+     * 2. Sonst: Command ausführen (mit übrigen Aktionen als Parameter)
+     * 3. Nach einem Event mit shouldExit() ist das Spiel vorbei
+     * 4. ActionsLeft dekrementieren
+     * 5. Falls noch Aktionen übrig, ActNow erzeugen und auf den nächsten Command warten
+     * 6. Sonst Zyklus beenden und nächsten Zyklus beginnen
+     *
+     * @param command der Command des Spielers
+     * @return alle Events dieses Schritts in Sende-Reihenfolge, leer falls das Spiel schon vorbei ist
+     */
+    public List<Event> handle(Command command) {
+        if (finished) {
+            return Collections.emptyList();
+        }
+        events = new ArrayList<>();
+        step(command);
+        return events;
+    }
+
+    private void step(Command command) {
+        if (!registered) {
+            if (dispatch(command.execute(map, random, 3))) {
+                return;
+            }
+            //Registrierung erfolgreich abgeschlossen, Spiel fängt an
+            registered = true;
+            beginCycle();
+            return;
+        }
+        if (dispatch(command.execute(map, random, actionsLeft))) {
+            return;
+        }
+        actionsLeft = actionsLeft - command.actionsUsed() - map.getClientShip().getStormPenalty();
+        map.getClientShip().setStormPenalty(Math.abs(Math.min(0, actionsLeft)));
+        if (actionsLeft > 0) {
+            events.add(new ActNowEvent(actionsLeft));
+        } else if (endCycle()) {
+            beginCycle();
+        }
+    }
+
+    /**
+     * Der Spieler hat nicht rechtzeitig geantwortet. Vor der Registrierung endet das Spiel kommentarlos, danach
+     * verloren.
+     *
+     * @return das abschließende GameEnd, leer vor der Registrierung oder falls das Spiel schon vorbei ist
+     */
+    public List<Event> timeout() {
+        if (finished) {
+            return Collections.emptyList();
+        }
+        finished = true;
+        return registered ? List.of(new GameEndEvent(GameEndEvent.LOST_SCORE)) : Collections.emptyList();
+    }
+
+    /**
+     * @return ob das Spiel vorbei ist, weitere Commands werden dann ignoriert
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public Map getMap() {
+        return map;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * @return die im aktuellen Zyklus noch übrigen Aktionen
+     */
+    public int getActionsLeft() {
+        return actionsLeft;
+    }
+
+    /**
+     * Beginnt Zyklen, bis der Spieler wieder Aktionen übrig hat
+     * 1. Sind noch Zyklen übrig?
+     * 2. NextCycle erzeugen (mit übrigen Zyklen als Parameter)
+     * 3. ActionsLeft auf die Health des Spielers setzen
+     * 4. Sind Aktionen übrig, ActNow erzeugen (mit übrigen Aktionen als Parameter) und auf Command warten
+     * 5. Sonst Zyklus direkt beenden und zurück zu Punkt Nr. 1
+     * 6. Falls keine Zyklen mehr vorhanden, GameEnd erzeugen und Spiel beenden
+     */
+    private void beginCycle() {
+        while (map.getCycles() <= map.getMaxCycles()) {
+            events.add(new NextCycleEvent(map.getMaxCycles() - map.getCycles() + 1));
+            //ActionsLeft initialisieren
+            actionsLeft = map.getClientShip().getHealth() - map.getClientShip().getStormPenalty();
+            map.getClientShip().setStormPenalty(Math.abs(Math.min(0, actionsLeft)));
+            if (actionsLeft > 0) {
+                events.add(new ActNowEvent(actionsLeft));
+                return;
+            }
+            if (!endCycle()) {
+                return;
+            }
+        }
+
+        //Keine Zyklen mehr übrig: Spiel beenden
+        dispatch(List.of(new GameEndEvent(GameEndEvent.LOST_SCORE)));
+    }
+
+    /**
+     * Beendet den aktuellen Zyklus
+     * 1. Piraten bewegen
+     * 2. alle 21 Runden Effekte spawnen
+     * 3. map.cycles inkrementieren
+     *
+     * @return false, falls das Spiel dabei geendet hat
+     */
+    private boolean endCycle() {
+        //Piraten bewegen
+        boolean measured = ServerMetrics.isEnabled();
+        long start = measured ? System.nanoTime() : 0;
+        List<Event> pirateEvents = movePirates();
+        if (measured) {
+            ServerMetrics.get().recordPirates(System.nanoTime() - start);
+        }
+        if (dispatch(pirateEvents)) {
+            return false;
+        }
+
+        //Effekte spawnen
+        if (map.getCycles() % 21 == 0) {
+            map.spawnEffects(random);
+        }
+
+        //Cycle muss jede Runde um 1 erhöht werden
+        map.setCycles(map.getCycles() + 1);
+        return true;
+    }
+
+    /**
+     * Übernimmt die Events in die Ausgabe dieses Schritts und beendet das Spiel, sobald eines davon shouldExit()
+     * verlangt. Spätere Events der Liste werden verworfen.
+     *
+     * @return true, falls das Spiel beendet wurde
+     */
+    private boolean dispatch(List<Event> newEvents) {
+        for (Event e : newEvents) {
+            events.add(e);
+            if (e.shouldExit()) {
+                finished = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Muwt alle Piraten. Falls Pirat nicht tot, nicht auf Player, zieht priorisiert auf Player ansonsten auf
+     * random adjacent Tile.
+     *
+     * @return Die List an Events die ALLE Piraten verursachen
+     */
+    public List<Event> movePirates() {
+        List<Direction> possibleMove;
+        List<Event> res = new ArrayList<>();
+        for (Pirate k : map.getPirates()) {
+            possibleMove = new ArrayList<>();
+            //falls pirat tot || pirate steht auf player
+            if (k.isDead() || map.getClientShip().getPosition().equals(k.getPosition())) {
+                continue;
+            }
+            this.adjacentTiles(possibleMove, k);
+            this.calculatePirateMove(res, possibleMove, k);
+        }
+        return res;
+    }
+
+
+    /**
+     * Helferfunktion
+     * Name ist Programm
+     *
+     * @param coord Das gewollte Tile
+     * @return Das gewollte Tile
+     */
+    public Tile tileFromCoordinate(Coordinate coord) {
+        return map.getTile(coord.getxCoordinate(), coord.getyCoordinate());
+    }
+
+    /**
+     * Bewegt den {@code pirate} in eine Richtung enhalten in {@code dir}
+     * zuerst wird gestestet ob PLAYER in sichtweite ist und bewegt die entsprechende Richtung
+     * ansonsten wird in eine zufällige richting enthalten in {@code dir} bewegt.
+     *
+     * @param events Resultierende Events nach move und ggf. rob/dmg event
+     * @param dir    Liste ALLER moeglichen zuege
+     * @param pirate Der zu bewegende Pirat
+     */
+    public void calculatePirateMove(List<Event> events, List<Direction> dir, Pirate pirate) {
+        boolean movedFlag = false;
+        List<Direction> direcitonWithoutHarborAndPirate;
+        for (Direction d : dir) {
+            //player sichtbar
+            if (map.getClientShip().getPosition().equals(pirate.getPosition().coordinatesOf(d))) {
+                //pirat||hafen mit spieler
+                if (this.tileFromCoordinate(map.getClientShip().getPosition()).isPirate()
+                        || this.tileFromCoordinate(pirate.getPosition().coordinatesOf(d)).getFieldType() == FieldType.HARBOR) {
+                    movedFlag = true;
+                    continue;
+                }
+                //falls das startfeld des Piraten im Sichtfeld ist wird es als MapUpdate geadded
+                if (map.isVisibleToPlayer(pirate.getPosition())) {
+                    events.add(new MapUpdateEvent(pirate.getPosition().getxCoordinate(), pirate.getPosition().getyCoordinate(), this.addMapUpdateTileWithoutPirate(pirate)));
+                }
+                //Pirate zieht auf spieler
+                this.movePiratesInGivenDirection(d, pirate);
+                //falls das zielfeld des Pirate im Sichtfeld ist wird es als MapUpdate geadded
+                if (map.isVisibleToPlayer(pirate.getPosition())) {
+                    events.add(new MapUpdateEvent(pirate.getPosition().getxCoordinate(), pirate.getPosition().getyCoordinate(), this.tileFromCoordinate(pirate.getPosition())));
+                }
+                this.addEvents(events);
+                movedFlag = true;
+            }
+        }
+        //pirate macht random move auf felder Ohne Harbor
+        if (!movedFlag && !dir.isEmpty()) {
+            direcitonWithoutHarborAndPirate = this.tilesWithoutHarborAndPirate(dir.iterator(), pirate);
+            if (!direcitonWithoutHarborAndPirate.isEmpty()) {
+                //falls das startfeld des Piraten im Sichtfeld ist wird es als MapUpdate geadded
+                if (map.isVisibleToPlayer(pirate.getPosition())) {
+                    events.add(new MapUpdateEvent(pirate.getPosition().getxCoordinate(), pirate.getPosition().getyCoordinate(), this.addMapUpdateTileWithoutPirate(pirate)));
+                }
+                movePiratesInGivenDirection(direcitonWithoutHarborAndPirate.get(random.nextInt(direcitonWithoutHarborAndPirate.size())), pirate);
+                //falls das zielfeld des Pirate im Sichtfeld ist wird es als MapUpdate geadded
+                if (map.isVisibleToPlayer(pirate.getPosition())) {
+                    events.add(new MapUpdateEvent(pirate.getPosition().getxCoordinate(), pirate.getPosition().getyCoordinate(), this.tileFromCoordinate(pirate.getPosition())));
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Ändert die Position des {@code Pirate} auf der Map
+     *
+     * @param dir    die richtung in die Bewegt wird
+     * @param pirate der yu bewegende Pirat
+     */
+    public void movePiratesInGivenDirection(Direction dir, Pirate pirate) {
+        map.movePirate(pirate, pirate.getPosition().coordinatesOf(dir));
+    }
+
+    /**
+     * Prüft ob Pirat {@code k} in Richtung {@code dir} muwen kann,
+     * falls tile verbunden und KEIN effekt.
+     *
+     * @param dir in die zu bewegende Richtung
+     * @param k   der zu bewegende Pirat
+     * @return true, falls dir valid, sonst false
+     */
+    public boolean pirateCanMoveInDirection(Direction dir, Pirate k) {
+        return this.fromDirectionToConnection(dir, k)
+                && this.tileFromCoordinate(k.getPosition().coordinatesOf(dir)).getEffect() == FieldEffect.NONE;
+    }
+
+    /**
+     * Hilfsfunktion, Name ist Programm
+     *
+     * @param dir    die zu pruefende Verbindung
+     * @param pirate der betrachtete Pirat
+     * @return true, falls verbindung in dir besteht, sonst false
+     */
+    public boolean fromDirectionToConnection(Direction dir, Pirate pirate) {
+        switch (dir) {
+            case NORTH:
+                return map.getPirateTile(pirate.getID()).isHasNorth();
+            case EAST:
+                return map.getPirateTile(pirate.getID()).isHasEast();
+            case SOUTH:
+                return map.getPirateTile(pirate.getID()).isHasSouth();
+            case WEST:
+                return map.getPirateTile(pirate.getID()).isHasWest();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Nachdem alle benachbarten tiles gecheckt wurden muessen nun jene mit Harborn auf ihnen geloescht werden
+     *
+     * @param withHarbor liste aller benachbarten felder
+     * @param k          der betrachtete Pirat
+     * @return liste alle benachbarten felder ohne harbor
+     */
+    public List<Direction> tilesWithoutHarborAndPirate(Iterator<Direction> withHarbor, Pirate k) {
+        List<Direction> res = new ArrayList<>();
+        Direction current;
+        while (withHarbor.hasNext()) {
+            current = withHarbor.next();
+            if (this.tileFromCoordinate(k.getPosition().coordinatesOf(current)).getFieldType() != FieldType.HARBOR
+                    && !this.tileFromCoordinate(k.getPosition().coordinatesOf(current)).isPirate()) {
+                res.add(current);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Brechnet alle tiles mit verbindungen zum eigenen Tile
+     * AUCH MIT HARBOR
+     *
+     * @param res    der Rueckgabewert in dem alle verbundenen Tiles enthalten sind
+     * @param pirate der betrachtete Pirat
+     */
+    public void adjacentTiles(List<Direction> res, Pirate pirate) {
+        //tile Has North Conn && not Port && not FieldEffect && not Pirate
+        if (this.pirateCanMoveInDirection(Direction.NORTH, pirate)) {
+            res.add(Direction.NORTH);
+        }
+        //tile Has East Conn && not Port && not FieldEffect && not Pirate
+        if (this.pirateCanMoveInDirection(Direction.EAST, pirate)) {
+            res.add(Direction.EAST);
+        }
+        //tile Has SOUTH Conn && not Port && not FieldEffect && not Pirate
+        if (this.pirateCanMoveInDirection(Direction.SOUTH, pirate)) {
+            res.add(Direction.SOUTH);
+        }
+        //tile Has west Conn && not Port && not FieldEffect && not Pirate
+        if (this.pirateCanMoveInDirection(Direction.WEST, pirate)) {
+            res.add(Direction.WEST);
+        }
+    }
+
+
+    public Tile addMapUpdateTileWithoutPirate(Pirate k) {
+        Tile pirateTile = this.tileFromCoordinate(k.getPosition());
+        return new Tile(pirateTile.getEffect(), pirateTile.getFieldType(), pirateTile.isHasNorth(), pirateTile.isHasEast(), pirateTile.isHasSouth(), pirateTile.isHasWest(), false, pirateTile.getTreasure());
+    }
+
+    /**
+     * events werden geadded falls pirat auf player tile zieht
+     *
+     * @param events die resultierende EventList
+     */
+    public void addEvents(Collection<Event> events) {
+        //Events werden geadded
+        events.add(new RobbedEvent());
+        events.add(new DamagedEvent(1));
+        //Events werden 'physikalisch' am schiff ausgelassen
+        if (map.getClientShip().getTreasureStorage() != null) {
+            map.getClientShip().getTreasureStorage().clear();
+        }
+        map.getClientShip().setHealth(map.getClientShip().getHealth() - 1);
+        if (map.hasGameEnded()) {
+            events.add(new GameEndEvent(GameEndEvent.LOST_SCORE));
+        }
+    }
+}
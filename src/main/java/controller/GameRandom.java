@@ -0,0 +1,40 @@
+package controller;
+
+import java.util.Random;
+
+/**
+ * {@link Random} mit demselben Generator und damit derselben Folge für denselben Seed, dessen innerer Zustand sich
+ * aber auslesen und zurücksetzen lässt. Nur für einen Thread gedacht, wie jede {@link GameEngine}.
+ */
+final class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // ohne Initialisierer: setSeed läuft schon im Konstruktor von Random
+
+    GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state;
+    }
+}
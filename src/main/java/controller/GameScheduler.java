@@ -0,0 +1,146 @@
+package controller;
+
+import commands.Command;
+import connection.CommException;
+import connection.ServerConnection;
+import connection.SessionRouter;
+import model.Map;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Führt beliebig viele Spiele als Zustandsautomaten auf einem kleinen Thread-Pool aus.
+ * <p>
+ * Statt pro Spiel einen Thread in {@link ServerConnection#nextCommand()} parken zu lassen, meldet der I/O-Thread
+ * des {@link SessionRouter} jeden angekommenen Frame. Das betroffene Spiel wird dann auf dem Executor eingeplant
+ * und arbeitet alle wartenden Commands mit {@link Server#handle(Command)} ab. Die Schritte eines Spiels laufen
+ * dabei nie parallel, wartende Spiele belegen keinen Thread.
+ * <p>
+ * Die Deadline für den nächsten Command überwacht ein gemeinsames {@link DeadlineWheel}: läuft sie ab, endet das
+ * Spiel wie beim Timeout einer einzelnen Verbindung mit {@link Server#timeout()}.
+ * <p>
+ * Die Spiele werden in der Reihenfolge ihrer Sessions ab 1 durchnummeriert, Spiel Nummer n bekommt den Seed
+ * {@code seed + n}. So spielt jede Session ein eigenes Spiel, das sich mit diesem Seed wiederholen lässt.
+ */
+public class GameScheduler implements SessionRouter.SessionHandler<Command> {
+    private final Executor executor;
+    private final DeadlineWheel timer;
+    private final Supplier<Map> maps;
+    private final long seed;
+    private final int timeout;
+    private long games;
+
+    /**
+     * @param executor führt die Spielschritte aus
+     * @param timer    überwacht die Deadlines aller Spiele
+     * @param maps     liefert für jedes neue Spiel eine frische Map
+     * @param seed     Basis der Seeds, Spiel Nummer n bekommt {@code seed + n}
+     * @param timeout  Deadline für jeden Command in ms, -1 für keine
+     */
+    public GameScheduler(Executor executor, DeadlineWheel timer, Supplier<Map> maps, long seed, int timeout) {
+        this.executor = executor;
+        this.timer = timer;
+        this.maps = maps;
+        this.seed = seed;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void sessionOpened(ServerConnection<Command> session) {
+        //nur vom I/O-Thread des SessionRouter aufgerufen, die Nummerierung braucht keine Synchronisation
+        games++;
+        session.setAttachment(new Game(session, seed + games));
+    }
+
+    @Override
+    public void sessionReadable(ServerConnection<Command> session) {
+        ((Game) session.getAttachment()).signal();
+    }
+
+    /**
+     * Ein Spiel samt Zustand seiner Einplanung. {@code signals} zählt Benachrichtigungen, die seit dem letzten
+     * Durchlauf angekommen sind; nur der Übergang von 0 auf 1 plant einen neuen Durchlauf ein.
+     */
+    private final class Game implements Runnable {
+        private final ServerConnection<Command> session;
+        private final long seed;
+        private final AtomicInteger signals = new AtomicInteger();
+        private Server server;
+        /**
+         * Deadline für den nächsten Command, gehört dem Thread, der gerade einen Durchlauf macht.
+         */
+        private DeadlineWheel.Deadline deadline;
+
+        private Game(ServerConnection<Command> session, long seed) {
+            this.session = session;
+            this.seed = seed;
+        }
+
+        private void signal() {
+            if (signals.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int seen;
+            do {
+                seen = signals.get();
+                try {
+                    step();
+                } catch (CommException e) {
+                    //Verbindung kaputt: Session freigeben, weitere Frames werden ignoriert
+                    abort();
+                } catch (RuntimeException e) {
+                    //ein Fehler im Spiel beendet nur dieses Spiel, der Pool läuft weiter
+                    abort();
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            } while (!signals.compareAndSet(seen, 0));
+        }
+
+        private void step() {
+            if (session.isClosed()) {
+                return;
+            }
+            if (server == null) {
+                server = new Server(maps.get(), seed, session);
+            }
+            //ob die bisherige Deadline abgelaufen ist, entscheidet allein ihr eigener Zustand: ein Ablauf kurz vor
+            //cancel() zählt nur, wenn in diesem Durchlauf kein Command mehr ankommt
+            DeadlineWheel.Deadline pending = deadline;
+            if (pending != null) {
+                pending.cancel();
+                deadline = null;
+            }
+            boolean progressed = false;
+            Command command;
+            while (!server.isFinished() && (command = session.pollCommand()) != null) {
+                server.handle(command);
+                progressed = true;
+            }
+            if (pending != null && pending.isExpired() && !progressed) {
+                server.timeout();
+            }
+            if (!server.isFinished() && timeout >= 0) {
+                deadline = timer.schedule(this::signal, timeout, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Beendet das Spiel ohne weiteren Schritt: keine Deadline mehr, die Session wird geschlossen.
+         */
+        private void abort() {
+            if (deadline != null) {
+                deadline.cancel();
+                deadline = null;
+            }
+            session.close();
+        }
+    }
+}
@@ -46,4 +46,8 @@ public class ActNowEvent extends Event {
     public boolean shouldExit() {
         return false;
     }
+
+    public int getMovesLeft() {
+        return movesLeft;
+    }
 }
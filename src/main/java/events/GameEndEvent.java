@@ -47,4 +47,8 @@ public class GameEndEvent extends Event {
     public boolean shouldExit() {
         return true;
     }
+
+    public int getScore() {
+        return score;
+    }
 }
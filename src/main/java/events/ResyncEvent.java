@@ -0,0 +1,41 @@
+package events;
+
+import commands.Command;
+import connection.ServerConnection;
+
+import java.util.Objects;
+
+/**
+ * Antwort auf einen {@link commands.ResyncCommand}: kommt beim Client nicht als eigenes Event an, sondern als ein
+ * MapUpdate pro Tile, das die ServerConnection dem Client bereits geschickt hat.
+ */
+public class ResyncEvent extends Event {
+    @Override
+    public String toString() {
+        return "ResyncEvent{}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o != null && getClass() == o.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash();
+    }
+
+    @Override
+    public void sendEvent(ServerConnection<Command> serverConnection) {
+        serverConnection.resendKnownTiles();
+    }
+
+    @Override
+    public boolean shouldExit() {
+        return false;
+    }
+
+}
@@ -1,15 +1,38 @@
 package main;
 
 import commands.*;
+import controller.DeadlineWheel;
+import controller.GameScheduler;
 import controller.Server;
 import model.Map;
+import connection.GameJournal;
+import connection.GameRecorder;
+import connection.JournalRing;
 import connection.ServerConnection;
+import connection.SessionRouter;
+import connection.Transport;
+import metrics.MetricsEndpoint;
+import metrics.ServerMetrics;
+import util.MapCache;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
 
 import org.apache.commons.cli.*;
 
 public final class Main {
+    /**
+     * Vorlagen für die Karten der Spiele mit -multi/-async.
+     */
+    private static final MapCache MAP_CACHE = new MapCache(16);
 
     /**
      * Main method which is given the command line arguments and serves as an entry point for the whole application.
@@ -27,7 +50,7 @@ public final class Main {
                         .type(Integer.TYPE)
                         .build())
                 .addOption(Option.builder("seed")
-                        .desc("seed for random generators")
+                        .desc("seed for random generators, with -multi or -async game n of the server uses seed + n")
                         .hasArg(true)
                         .numberOfArgs(1)
                         .required(true)
@@ -41,12 +64,66 @@ public final class Main {
                         .type(Integer.TYPE)
                         .build())
                 .addOption(Option.builder("map")
-                        .desc("path to map (JSON file)")
+                        .desc("path to map (JSON file, or compiled by main.MapCompiler)")
                         .hasArg(true)
                         .numberOfArgs(1)
                         .required(true)
                         .type(String.class)
-                        .build());
+                        .build())
+                .addOption(Option.builder("multi")
+                        .desc("host an independent game for every client connecting to the port")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOption(Option.builder("async")
+                        .desc("like -multi, but run the games as state machines on a small thread pool")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOption(Option.builder("batch")
+                        .desc("send all events caused by one command as a single frame")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOption(Option.builder("packed")
+                        .desc("store the tiles of every map as packed ints instead of objects")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOption(Option.builder("transport")
+                        .desc("transport to the clients: jeromq (default), nio (length-prefixed TCP), shm (shared memory, clients on this host) or memory (clients in this process)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(String.class)
+                        .build())
+                .addOption(Option.builder("metrics")
+                        .desc("measure commands, events and games; serve them as text on http://localhost:<port>/metrics and via JMX")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.class)
+                        .build())
+                .addOption(Option.builder("large")
+                        .desc("large-map mode: up to 4096 tiles per side, chunked tiles, streaming map loader")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOptionGroup(new OptionGroup()
+                        .addOption(Option.builder("journal")
+                                .desc("record every game for main.Replay: a file, or with -multi/-async a directory for one file per game")
+                                .hasArg(true)
+                                .numberOfArgs(1)
+                                .required(false)
+                                .type(String.class)
+                                .build())
+                        .addOption(Option.builder("ring")
+                                .desc("record all games of this process into a memory-mapped ring file, see main.RingExtract")
+                                .hasArg(true)
+                                .numberOfArgs(1)
+                                .required(false)
+                                .type(String.class)
+                                .build()));
 
         //parse the commandline
         CommandLineParser parser = new DefaultParser();
@@ -57,16 +134,145 @@ public final class Main {
         long seed = Long.parseLong(cmd.getOptionValue("seed"));
         int timeout = Integer.parseInt(cmd.getOptionValue("timeout"));
         String path = cmd.getOptionValue("map");
+        boolean batch = cmd.hasOption("batch");
+        boolean packed = cmd.hasOption("packed");
+        boolean large = cmd.hasOption("large");
+        Transport transport = cmd.hasOption("transport") ? Transport.forName(cmd.getOptionValue("transport"))
+                : Transport.getDefault();
+        String journal = cmd.getOptionValue("journal");
+        JournalRing ring = cmd.hasOption("ring") ? JournalRing.create(Paths.get(cmd.getOptionValue("ring"))) : null;
+        MetricsEndpoint metrics = null;
+        if (cmd.hasOption("metrics")) {
+            ServerMetrics.enable();
+            ServerMetrics.get().registerMBean();
+            metrics = MetricsEndpoint.start(Integer.parseInt(cmd.getOptionValue("metrics")), ServerMetrics.get());
+        }
+
+        if (cmd.hasOption("multi") || cmd.hasOption("async")) {
+            LongFunction<GameRecorder> recorders = null;
+            if (journal != null) {
+                Path directory = Files.createDirectories(Paths.get(journal));
+                recorders = game -> createJournal(directory.resolve("game-" + game + ".journal"), path, seed + game);
+            } else if (ring != null) {
+                recorders = game -> ring.open(path, seed + game);
+            }
+            runSessions(transport, port, seed, timeout, path, packed, large, cmd.hasOption("async"), batch, recorders);
+            return;
+        }
 
         //create needed server components
         OwnCommandFactory cmdFac = new OwnCommandFactory();
-        ServerConnection<Command> srvcon = new ServerConnection<>(port, timeout, cmdFac);
+        ServerConnection<Command> srvcon = new ServerConnection<>(transport, port, timeout, cmdFac);
+        srvcon.setBatching(batch);
+        if (journal != null) {
+            srvcon.setRecorder(GameJournal.create(Paths.get(journal), path, seed));
+        } else if (ring != null) {
+            srvcon.setRecorder(ring.open(path, seed));
+        }
 
-        Map map = Map.fromJson(path);
+        Map map = Map.load(path, large);
+        if (packed) {
+            map.packTiles();
+        }
 
         Server server = new Server(map, seed, srvcon);
 
         server.startGame();
+        if (ring != null) {
+            ring.close();
+        }
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    /**
+     * Startet für jede Client-Identity ein eigenes Spiel mit eigener Map und eigenem Random.
+     * Alle Spiele teilen sich einen Port, dessen Endpoint vom aufrufenden Thread bedient wird.
+     * Die Spiele werden in der Reihenfolge ihrer Sessions ab 1 durchnummeriert, Spiel Nummer n bekommt den Seed
+     * {@code seed + n}. Handler und Recorder zählen dieselben Aufrufe von sessionOpened auf dem I/O-Thread und
+     * kommen deshalb auf dieselbe Nummer.
+     *
+     * @param transport über den die Clients angenommen werden
+     * @param packed die Tiles jeder Karte gepackt ablegen
+     * @param large Modus für große Karten: jedes Spiel lädt die Karte selbst, ohne Vorlage im Cache
+     * @param async false: jedes Spiel bekommt einen eigenen Thread, der auf seine Commands wartet.
+     *              true: die Spiele laufen als Zustandsautomaten auf einem Pool mit einem Thread pro Kern.
+     * @param batch alle Events eines Commands als einen Frame versenden
+     * @param recorders liefert zur laufenden Nummer eines Spiels dessen Recorder, oder null. Der Recorder muss den
+     *                  Seed {@code seed + Nummer} aufzeichnen.
+     */
+    private static void runSessions(Transport transport, int port, long seed, int timeout, String path, boolean packed,
+                                    boolean large, boolean async, boolean batch, LongFunction<GameRecorder> recorders)
+            throws IOException {
+        //Karte einmal vorab laden, damit eine ungültige Karte sofort auffällt
+        if (large) {
+            Map.load(path, true);
+        } else {
+            MAP_CACHE.load(path, packed);
+        }
+
+        SessionRouter.SessionHandler<Command> handler;
+        if (async) {
+            ForkJoinPool steps = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            handler = new GameScheduler(steps, new DeadlineWheel(), () -> loadMap(path, packed, large), seed, timeout);
+        } else {
+            ExecutorService games = Executors.newCachedThreadPool();
+            AtomicLong sessions = new AtomicLong();
+            handler = session -> {
+                long sessionSeed = seed + sessions.incrementAndGet();
+                games.execute(() -> {
+                    try {
+                        new Server(loadMap(path, packed, large), sessionSeed, session).startGame();
+                    } finally {
+                        session.close();
+                    }
+                });
+            };
+        }
+        if (recorders != null) {
+            handler = recording(handler, recorders);
+        }
+        SessionRouter<Command> router = new SessionRouter<>(transport, port, timeout, new OwnCommandFactory(), handler);
+        router.setBatching(batch);
+        router.run();
+    }
+
+    /**
+     * Hängt an jede neue Session einen eigenen Recorder, bevor das Spiel beginnt.
+     */
+    private static SessionRouter.SessionHandler<Command> recording(SessionRouter.SessionHandler<Command> handler,
+                                                                   LongFunction<GameRecorder> recorders) throws IOException {
+        AtomicLong games = new AtomicLong();
+        return new SessionRouter.SessionHandler<>() {
+            @Override
+            public void sessionOpened(ServerConnection<Command> session) {
+                session.setRecorder(recorders.apply(games.incrementAndGet()));
+                handler.sessionOpened(session);
+            }
+
+            @Override
+            public void sessionReadable(ServerConnection<Command> session) {
+                handler.sessionReadable(session);
+            }
+        };
+    }
+
+    private static GameRecorder createJournal(Path file, String path, long seed) {
+        try {
+            return GameJournal.create(file, path, seed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map loadMap(String path, boolean packed, boolean large) {
+        try {
+            return large ? Map.load(path, true) : MAP_CACHE.load(path, packed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,154 @@
+package main;
+
+import model.Map;
+import org.apache.commons.cli.*;
+import org.json.JSONException;
+import util.MapFile;
+import util.MapGenerator;
+import util.SerializableMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+/**
+ * Erzeugt zufällige Karten mit dem {@link MapGenerator}, etwa als Korpus für Fuzzing oder Benchmarks. Karte i
+ * entsteht aus dem Seed {@code seed + i}, ist also unabhängig von der Zahl der Threads reproduzierbar.
+ */
+public final class RandomMaps {
+
+    private RandomMaps() {
+    }
+
+    public static void main(String[] args) throws IOException, ParseException, InterruptedException {
+        Options options = new Options()
+                .addOption(Option.builder("count")
+                        .desc("number of maps (default: 1000)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.class)
+                        .build())
+                .addOption(Option.builder("seed")
+                        .desc("seed of the first map, map i uses seed + i (default: 0)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Long.class)
+                        .build())
+                .addOption(Option.builder("width")
+                        .desc("width of every map (default: random per map)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.class)
+                        .build())
+                .addOption(Option.builder("height")
+                        .desc("height of every map (default: random per map)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.class)
+                        .build())
+                .addOption(Option.builder("openness")
+                        .desc("probability of each connection beyond the spanning tree, 0 = maze, 1 = open sea (default: 0)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Double.class)
+                        .build())
+                .addOption(Option.builder("threads")
+                        .desc("number of generating threads (default: available processors)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.class)
+                        .build())
+                .addOption(Option.builder("out")
+                        .desc("directory to write the maps to as JSON (default: generate only)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(String.class)
+                        .build())
+                .addOption(Option.builder("compiled")
+                        .desc("write the maps in the compiled format of main.MapCompiler instead of JSON")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOption(Option.builder("check")
+                        .desc("re-validate every map as if loaded from JSON")
+                        .hasArg(false)
+                        .required(false)
+                        .build());
+        CommandLine cmd = new DefaultParser().parse(options, args);
+        int count = cmd.hasOption("count") ? Integer.parseInt(cmd.getOptionValue("count")) : 1000;
+        long seed = cmd.hasOption("seed") ? Long.parseLong(cmd.getOptionValue("seed")) : 0;
+        int threads = cmd.hasOption("threads") ? Integer.parseInt(cmd.getOptionValue("threads"))
+                : Runtime.getRuntime().availableProcessors();
+        MapGenerator generator = new MapGenerator(
+                cmd.hasOption("width") ? Integer.parseInt(cmd.getOptionValue("width")) : 0,
+                cmd.hasOption("height") ? Integer.parseInt(cmd.getOptionValue("height")) : 0);
+        if (cmd.hasOption("openness")) {
+            generator.setOpenness(Double.parseDouble(cmd.getOptionValue("openness")));
+        }
+        Path out = cmd.hasOption("out") ? Files.createDirectories(Paths.get(cmd.getOptionValue("out"))) : null;
+        boolean compiled = cmd.hasOption("compiled");
+        boolean check = cmd.hasOption("check");
+
+        AtomicInteger invalid = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long begin = System.nanoTime();
+        try {
+            pool.submit(() -> LongStream.range(seed, seed + count).parallel().forEach(s -> {
+                Map map = generator.generate(s);
+                if (check) {
+                    try {
+                        new SerializableMap(map).toMapValid();
+                    } catch (JSONException e) {
+                        System.out.println("seed " + s + ": " + e.getMessage());
+                        invalid.incrementAndGet();
+                    }
+                }
+                if (out != null) {
+                    write(map, out.resolve("map-" + s + (compiled ? MapFile.EXTENSION : ".json")), compiled);
+                }
+            })).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("generated %d maps in %.3f s (%.0f maps/s, %d threads)%n", count, seconds, count / seconds,
+                threads);
+        if (check) {
+            System.out.println("invalid: " + invalid.get());
+        }
+        if (invalid.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void write(Map map, Path target, boolean compiled) {
+        try {
+            if (compiled) {
+                MapFile.write(map, target);
+            } else {
+                Files.write(target, new SerializableMap(map).toJson().toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
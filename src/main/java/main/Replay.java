@@ -0,0 +1,65 @@
+package main;
+
+import commands.Command;
+import commands.OwnCommandFactory;
+import connection.CommException;
+import connection.JournalReplay;
+import controller.Server;
+import model.Map;
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Wiederholt mit {@code -journal} aufgezeichnete Spiele und prüft, dass der Server heute Byte für Byte dieselben
+ * Events sendet wie damals.
+ */
+public final class Replay {
+
+    private Replay() {
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        Options options = new Options()
+                .addOption(Option.builder("map")
+                        .desc("path to map (JSON file), defaults to the path recorded in each journal")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(String.class)
+                        .build());
+        CommandLine cmd = new DefaultParser().parse(options, args);
+        if (cmd.getArgList().isEmpty()) {
+            new HelpFormatter().printHelp("main.Replay [-map <path>] <journal>...", options);
+            System.exit(2);
+        }
+
+        int failed = 0;
+        for (String journal : cmd.getArgList()) {
+            if (!replay(journal, cmd.getOptionValue("map"))) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean replay(String journal, String mapOverride) throws IOException {
+        try (JournalReplay replay = JournalReplay.open(Paths.get(journal))) {
+            String mapPath = mapOverride != null ? mapOverride : replay.getMapPath();
+            Server server = new Server(Map.load(mapPath), replay.getSeed(), replay.<Command>connect(new OwnCommandFactory()));
+            try {
+                server.startGame();
+                replay.verifyComplete();
+            } catch (CommException e) {
+                System.out.println(journal + ": FAILED " + e.getMessage());
+                return false;
+            }
+            System.out.println(journal + ": OK, " + replay.getCommands() + " commands, " + replay.getEvents()
+                    + " events, " + replay.getCycles() + " cycles");
+            return true;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package main;
+
+import connection.RingReader;
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+/**
+ * Listet die Sessions einer mit {@code -ring} geschriebenen Ringdatei auf oder schreibt eine davon als Journal, das
+ * {@link Replay} wiederholen kann.
+ */
+public final class RingExtract {
+
+    private RingExtract() {
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        Options options = new Options()
+                .addOption(Option.builder("ring")
+                        .desc("ring file written by main.Main -ring")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(true)
+                        .type(String.class)
+                        .build())
+                .addOption(Option.builder("session")
+                        .desc("id of the session to extract, lists all sessions if omitted")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Long.TYPE)
+                        .build())
+                .addOption(Option.builder("out")
+                        .desc("journal file to write the session to (default: session-<id>.journal)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(String.class)
+                        .build());
+        CommandLine cmd = new DefaultParser().parse(options, args);
+        RingReader reader = RingReader.open(Paths.get(cmd.getOptionValue("ring")));
+
+        if (!cmd.hasOption("session")) {
+            System.out.println("ring started " + Instant.ofEpochMilli(reader.getStartMillis()) + ", "
+                    + reader.getSessions().size() + " sessions");
+            for (long session : reader.getSessions()) {
+                System.out.println("session " + session + ": " + reader.getCommands(session) + " commands, "
+                        + reader.getEvents(session) + " events, " + reader.getCycles(session) + " cycles"
+                        + (reader.hasStart(session) ? "" : ", start overwritten")
+                        + (reader.hasEnd(session) ? "" : ", not closed"));
+            }
+            return;
+        }
+
+        long session = Long.parseLong(cmd.getOptionValue("session"));
+        String out = cmd.getOptionValue("out", "session-" + session + ".journal");
+        reader.writeJournal(session, Paths.get(out));
+        System.out.println("session " + session + " written to " + out);
+    }
+}
@@ -0,0 +1,180 @@
+package main;
+
+import model.Map;
+import model.MapSnapshot;
+import org.apache.commons.cli.*;
+import sim.Bot;
+import sim.ScriptedBot;
+import sim.Summary;
+import sim.WanderingBot;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Kommandozeile für {@link sim.Simulator}: spielt eine Karte mit vielen Seeds ohne Server und gibt eine
+ * Zusammenfassung aus.
+ */
+public final class Simulator {
+
+    private Simulator() {
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        Options options = new Options()
+                .addOption(Option.builder("map")
+                        .desc("path to map (JSON file, or compiled by main.MapCompiler)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(true)
+                        .type(String.class)
+                        .build())
+                .addOption(Option.builder("seed")
+                        .desc("seed of the first game, game i uses seed + i")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(true)
+                        .type(Long.TYPE)
+                        .build())
+                .addOption(Option.builder("games")
+                        .desc("number of games (default 1000)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Long.TYPE)
+                        .build())
+                .addOption(Option.builder("bot")
+                        .desc("'wander' (default), 'script:<commands>' like 'script:move:east,pickup,endturn', "
+                                + "or the name of a class implementing sim.Bot with a (long seed) or no-arg constructor")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(String.class)
+                        .build())
+                .addOption(Option.builder("threads")
+                        .desc("number of worker threads (default: one per core)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.TYPE)
+                        .build())
+                .addOption(Option.builder("maxsteps")
+                        .desc("give up a game after this many commands (default " + sim.Simulator.DEFAULT_MAX_STEPS + ")")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(Integer.TYPE)
+                        .build())
+                .addOption(Option.builder("results")
+                        .desc("write one CSV line per game to this file (unordered)")
+                        .hasArg(true)
+                        .numberOfArgs(1)
+                        .required(false)
+                        .type(String.class)
+                        .build())
+                .addOption(Option.builder("packed")
+                        .desc("store the tiles of every map as packed ints instead of objects")
+                        .hasArg(false)
+                        .required(false)
+                        .build())
+                .addOption(Option.builder("large")
+                        .desc("large-map mode: up to 4096 tiles per side, chunked tiles, streaming map loader")
+                        .hasArg(false)
+                        .required(false)
+                        .build());
+
+        CommandLine cmd = new DefaultParser().parse(options, args);
+
+        long seed = Long.parseLong(cmd.getOptionValue("seed"));
+        long games = Long.parseLong(cmd.getOptionValue("games", "1000"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        LongFunction<Bot> bots = bots(cmd.getOptionValue("bot", "wander"));
+        Supplier<Map> maps = maps(cmd.getOptionValue("map"), cmd.hasOption("packed"), cmd.hasOption("large"));
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        sim.Simulator simulator = new sim.Simulator(maps, bots, pool);
+        if (cmd.hasOption("maxsteps")) {
+            simulator.setMaxSteps(Integer.parseInt(cmd.getOptionValue("maxsteps")));
+        }
+
+        PrintWriter results = null;
+        if (cmd.hasOption("results")) {
+            results = new PrintWriter(Files.newBufferedWriter(Paths.get(cmd.getOptionValue("results")), StandardCharsets.UTF_8));
+            results.println("seed,outcome,score,mapScore,cycles,commands");
+            PrintWriter out = results;
+            simulator.setListener(result -> {
+                synchronized (out) {
+                    out.println(result.getSeed() + "," + result.getOutcome() + "," + result.getScore() + ","
+                            + result.getMapScore() + "," + result.getCycles() + "," + result.getSteps());
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        Summary summary;
+        try {
+            summary = simulator.run(seed, games);
+        } finally {
+            pool.shutdown();
+            if (results != null) {
+                results.close();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(summary.report());
+        System.out.printf("time       %.2f s, %.0f games/s on %d threads%n", seconds, games / seconds, threads);
+    }
+
+    /**
+     * Lädt und prüft die Karte einmal, jedes Spiel bekommt daraus eine eigene Instanz.
+     *
+     * @param large Modus für große Karten, jedes Spiel bekommt einen eigenen {@link model.ChunkedTileStore}
+     */
+    private static Supplier<Map> maps(String path, boolean packed, boolean large) throws IOException {
+        MapSnapshot template = Map.load(path, large).snapshot();
+        return large ? template::toChunkedMap : () -> template.toMap(packed);
+    }
+
+    private static LongFunction<Bot> bots(String spec) {
+        if (spec.equals("wander")) {
+            return WanderingBot::new;
+        }
+        if (spec.startsWith("script:")) {
+            String script = spec.substring("script:".length());
+            ScriptedBot.parse(script); // Fehler im Skript sofort melden
+            return seed -> ScriptedBot.parse(script);
+        }
+        try {
+            Class<? extends Bot> type = Class.forName(spec).asSubclass(Bot.class);
+            try {
+                var constructor = type.getConstructor(long.class);
+                return seed -> newInstance(() -> constructor.newInstance(seed));
+            } catch (NoSuchMethodException e) {
+                var constructor = type.getConstructor();
+                return seed -> newInstance(constructor::newInstance);
+            }
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("cannot use " + spec + " as bot", e);
+        }
+    }
+
+    private interface Instantiation {
+        Bot create() throws ReflectiveOperationException;
+    }
+
+    private static Bot newInstance(Instantiation instantiation) {
+        try {
+            return instantiation.create();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create bot", e);
+        }
+    }
+}
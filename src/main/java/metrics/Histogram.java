@@ -0,0 +1,92 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-lineares Histogramm für Laufzeiten in Nanosekunden, nach dem Vorbild von HdrHistogram: jede Zweierpotenz ist in
+ * {@value #SUB_COUNT} gleich breite Buckets geteilt, der relative Fehler liegt also unter 1/{@value #SUB_COUNT}.
+ * Werte unter {@value #SUB_COUNT} werden exakt gezählt, Werte ab 2^{@value #MAX_EXPONENT} ns (rund 18 Minuten) landen
+ * im letzten Bucket.
+ * <p>
+ * {@link #record(long)} ist von beliebigen Threads aus aufrufbar, allokiert nichts und kostet ein paar atomare
+ * Additionen. Nur {@link #snapshot()} legt Objekte an.
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_COUNT + (MAX_EXPONENT - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value Laufzeit in ns, negative Werte zählen als 0
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(index(v));
+        sum.addAndGet(v);
+        long current;
+        while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+            //ein anderer Thread hat gerade ein neues Maximum gesetzt, erneut vergleichen
+        }
+    }
+
+    /**
+     * Momentaufnahme aller Werte. Läuft parallel ein {@link #record(long)}, ist er darin eventuell nur teilweise
+     * enthalten.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long maximum = max.get();
+        return new HistogramSnapshot(count, count == 0 ? 0 : (double) sum.get() / count,
+                percentile(copy, count, 0.5, maximum), percentile(copy, count, 0.9, maximum),
+                percentile(copy, count, 0.99, maximum), percentile(copy, count, 0.999, maximum), maximum);
+    }
+
+    /**
+     * @return der größte Wert im Bucket, in dem der Anteil {@code quantile} aller Werte erreicht ist
+     */
+    private static long percentile(long[] counts, long count, double quantile, long maximum) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), maximum);
+            }
+        }
+        return maximum;
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + (int) (value >>> (exponent - SUB_BITS)) - SUB_COUNT;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long lowest = (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
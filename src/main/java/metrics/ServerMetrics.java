@@ -0,0 +1,220 @@
+package metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Laufzeiten und Zähler aller Spiele dieses Prozesses. Es gibt nur eine Instanz, die Messpunkte in Server, Engine,
+ * Commands und ServerConnection schreiben direkt hinein.
+ * <p>
+ * Gemessen wird erst nach {@link #enable()}, vorher kostet jeder Messpunkt nur das Lesen von {@link #isEnabled()}.
+ * So bleiben etwa Simulationen ohne Metriken so schnell wie bisher. Ein Messpunkt sieht so aus:
+ * <pre>{@code
+ * boolean measured = ServerMetrics.isEnabled();
+ * long start = measured ? System.nanoTime() : 0;
+ * ...
+ * if (measured) {
+ *     ServerMetrics.get().recordDecode(System.nanoTime() - start);
+ * }
+ * }</pre>
+ * Das Flag wird dabei nur einmal gelesen. Der Wert von {@code start} taugt nicht als Marker, denn
+ * {@link System#nanoTime()} darf auch 0 oder negativ sein.
+ */
+public final class ServerMetrics implements ServerMetricsMXBean {
+    public static final String OBJECT_NAME = "myshipgame:type=ServerMetrics";
+    private static final ServerMetrics INSTANCE = new ServerMetrics();
+    private static volatile boolean enabled;
+
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesEnded = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder commandsFailed = new LongAdder();
+    private final Histogram decode = new Histogram();
+    private final Histogram pirates = new Histogram();
+    private final ConcurrentMap<String, Histogram> commandsByName = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Histogram> eventsByName = new ConcurrentSkipListMap<>();
+    private final ClassValue<Histogram> commands = byClass(commandsByName);
+    private final ClassValue<Histogram> events = byClass(eventsByName);
+
+    private ServerMetrics() {
+    }
+
+    public static ServerMetrics get() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Schaltet alle Messpunkte ein, sinnvollerweise vor dem ersten Spiel.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Ein Histogramm pro Klasse, ohne Map-Zugriff beim Messen. Gleichnamige Klassen aus verschiedenen Paketen teilen
+     * sich eines.
+     */
+    private static ClassValue<Histogram> byClass(ConcurrentMap<String, Histogram> byName) {
+        return new ClassValue<>() {
+            @Override
+            protected Histogram computeValue(Class<?> type) {
+                return byName.computeIfAbsent(type.getSimpleName(), name -> new Histogram());
+            }
+        };
+    }
+
+    /**
+     * Meldet die Metriken unter {@value #OBJECT_NAME} beim Platform-MBeanServer an, ein zweiter Aufruf ändert nichts.
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            //schon angemeldet
+        } catch (JMException e) {
+            throw new IllegalStateException("Metriken konnten nicht über JMX angemeldet werden!", e);
+        }
+    }
+
+    public void recordDecode(long nanos) {
+        decode.record(nanos);
+    }
+
+    public void recordPirates(long nanos) {
+        pirates.record(nanos);
+    }
+
+    public void recordCommand(Class<?> command, long nanos) {
+        commands.get(command).record(nanos);
+    }
+
+    public void recordEvent(Class<?> event, long nanos) {
+        events.get(event).record(nanos);
+    }
+
+    public void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    public void gameEnded() {
+        gamesEnded.increment();
+    }
+
+    public void timeout() {
+        timeouts.increment();
+    }
+
+    public void commandFailed() {
+        commandsFailed.increment();
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    @Override
+    public long getGamesEnded() {
+        return gamesEnded.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getCommandsFailed() {
+        return commandsFailed.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getDecodeLatency() {
+        return decode.snapshot();
+    }
+
+    @Override
+    public HistogramSnapshot getPirateLatency() {
+        return pirates.snapshot();
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getCommandLatencies() {
+        return snapshots(commandsByName);
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getEventLatencies() {
+        return snapshots(eventsByName);
+    }
+
+    private static Map<String, HistogramSnapshot> snapshots(Map<String, Histogram> histograms) {
+        Map<String, HistogramSnapshot> res = new TreeMap<>();
+        histograms.forEach((name, histogram) -> res.put(name, histogram.snapshot()));
+        return res;
+    }
+
+    /**
+     * Alle Metriken im Textformat von Prometheus: Zähler als {@code _total}, Histogramme als Summary mit Quantilen
+     * in Nanosekunden.
+     */
+    public String toText() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "myshipgame_games_started_total", getGamesStarted());
+        counter(out, "myshipgame_games_ended_total", getGamesEnded());
+        counter(out, "myshipgame_timeouts_total", getTimeouts());
+        counter(out, "myshipgame_commands_failed_total", getCommandsFailed());
+        summaryType(out, "myshipgame_decode_nanos");
+        summary(out, "myshipgame_decode_nanos", "", getDecodeLatency());
+        summaryType(out, "myshipgame_pirates_nanos");
+        summary(out, "myshipgame_pirates_nanos", "", getPirateLatency());
+        summaryType(out, "myshipgame_command_nanos");
+        getCommandLatencies().forEach((name, snapshot) ->
+                summary(out, "myshipgame_command_nanos", "command=\"" + name + "\",", snapshot));
+        summaryType(out, "myshipgame_event_nanos");
+        getEventLatencies().forEach((name, snapshot) ->
+                summary(out, "myshipgame_event_nanos", "event=\"" + name + "\",", snapshot));
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, long value) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summaryType(StringBuilder out, String name) {
+        out.append("# TYPE ").append(name).append(" summary\n");
+    }
+
+    /**
+     * @param labels weitere Labels vor dem Quantil, jeweils mit Komma abgeschlossen
+     */
+    private static void summary(StringBuilder out, String name, String labels, HistogramSnapshot snapshot) {
+        quantile(out, name, labels, "0.5", snapshot.getP50());
+        quantile(out, name, labels, "0.9", snapshot.getP90());
+        quantile(out, name, labels, "0.99", snapshot.getP99());
+        quantile(out, name, labels, "0.999", snapshot.getP999());
+        quantile(out, name, labels, "1", snapshot.getMax());
+        String plain = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_sum").append(plain).append(' ')
+                .append(String.format(Locale.ROOT, "%.0f", snapshot.getMean() * snapshot.getCount())).append('\n');
+        out.append(name).append("_count").append(plain).append(' ').append(snapshot.getCount()).append('\n');
+    }
+
+    private static void quantile(StringBuilder out, String name, String labels, String quantile, long value) {
+        out.append(name).append('{').append(labels).append("quantile=\"").append(quantile).append("\"} ")
+                .append(value).append('\n');
+    }
+}
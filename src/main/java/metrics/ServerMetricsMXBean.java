@@ -0,0 +1,37 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Sicht auf die {@link ServerMetrics} über JMX, registriert als {@value ServerMetrics#OBJECT_NAME}. Alle Laufzeiten in
+ * Nanosekunden.
+ */
+public interface ServerMetricsMXBean {
+    long getGamesStarted();
+
+    long getGamesEnded();
+
+    long getTimeouts();
+
+    long getCommandsFailed();
+
+    /**
+     * Dekodieren eines Commands in {@link connection.ServerConnection}.
+     */
+    HistogramSnapshot getDecodeLatency();
+
+    /**
+     * Piratenphase am Ende eines Zyklus.
+     */
+    HistogramSnapshot getPirateLatency();
+
+    /**
+     * Ausführung pro Command-Klasse, samt Piraten auf dem Feld des Spielers.
+     */
+    Map<String, HistogramSnapshot> getCommandLatencies();
+
+    /**
+     * Versenden pro Event-Klasse, bis der Frame beim Transport bzw. im Batch liegt.
+     */
+    Map<String, HistogramSnapshot> getEventLatencies();
+}
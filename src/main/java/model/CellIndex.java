@@ -0,0 +1,137 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Zuordnung Feld (y * width + x) zu einem int ungleich 0. Auf Karten bis {@value #DIRECT_CELLS} Felder ist das ein
+ * Array über alle Felder, auf größeren eine offene Hashtabelle mit linearer Sondierung über zwei int-Arrays, deren
+ * Speicher mit der Zahl der Einträge statt mit der Fläche der Karte wächst.
+ */
+final class CellIndex {
+    static final int DIRECT_CELLS = 1 << 16;
+    private static final int FREE = -1;
+
+    /**
+     * Wert pro Feld, null im Modus als Hashtabelle.
+     */
+    private final int[] direct;
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * @param cells    Anzahl der Felder der Karte
+     * @param expected erwartete Anzahl Einträge, die Hashtabelle wächst bei Bedarf
+     */
+    CellIndex(int cells, int expected) {
+        if (cells <= DIRECT_CELLS) {
+            direct = new int[cells];
+            return;
+        }
+        direct = null;
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * @return der Wert zum Feld oder 0
+     */
+    int get(int cell) {
+        if (direct != null) {
+            return direct[cell];
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(cell) & mask; ; slot = (slot + 1) & mask) {
+            int key = keys[slot];
+            if (key == cell) {
+                return values[slot];
+            }
+            if (key == FREE) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param value ungleich 0, zum Entfernen {@link #remove(int)}
+     */
+    void put(int cell, int value) {
+        if (direct != null) {
+            direct[cell] = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(cell) & mask;
+        while (keys[slot] != FREE && keys[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == FREE) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+                put(cell, value);
+                return;
+            }
+            keys[slot] = cell;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    void remove(int cell) {
+        if (direct != null) {
+            direct[cell] = 0;
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(cell) & mask;
+        while (keys[slot] != cell) {
+            if (keys[slot] == FREE) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        //nachfolgende Einträge derselben Kette aufrücken lassen, damit get sie weiter findet
+        int next = (slot + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = FREE;
+        size--;
+    }
+
+    void clear() {
+        if (direct != null) {
+            Arrays.fill(direct, 0);
+            return;
+        }
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
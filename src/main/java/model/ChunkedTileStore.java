@@ -0,0 +1,144 @@
+package model;
+
+/**
+ * Ablage für große Karten: die Felder sind gepackt wie im {@link PackedTileStore}, liegen aber in Blöcken zu
+ * {@value #CHUNK} x {@value #CHUNK} Feldern, die erst beim ersten Schreiben angelegt werden. Ein nie beschriebener
+ * Block ist offenes Meer: normale Felder ohne Effekt, verbunden mit jedem Nachbarn innerhalb der Karte.
+ * <p>
+ * Der Speicherbedarf wächst also mit dem Teil der Karte, der vom offenen Meer abweicht oder im Spiel verändert wurde,
+ * nicht mit ihrer Fläche.
+ */
+public final class ChunkedTileStore implements TileStore {
+    public static final int CHUNK = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int NORMAL = PackedTileStore.pack(
+            new Tile(Tile.FieldEffect.NONE, Tile.FieldType.NORMAL, false, false, false, false, false, null));
+
+    private final int width;
+    private final int height;
+    private final int chunksPerRow;
+    private final int[][] chunks;
+    private int allocated;
+
+    public ChunkedTileStore(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksPerRow = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.chunks = new int[chunksPerRow * ((height + CHUNK_MASK) >>> CHUNK_SHIFT)][];
+    }
+
+    /**
+     * @return das Feld offenen Meeres an der Position, siehe Klassenbeschreibung
+     */
+    public static int openSea(int x, int y, int width, int height) {
+        return NORMAL
+                | (y > 0 ? PackedTileStore.NORTH : 0)
+                | (x < width - 1 ? PackedTileStore.EAST : 0)
+                | (y < height - 1 ? PackedTileStore.SOUTH : 0)
+                | (x > 0 ? PackedTileStore.WEST : 0);
+    }
+
+    @Override
+    public Tile get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new ArrayIndexOutOfBoundsException(String.format("(%d, %d) liegt außerhalb der Karte", x, y));
+        }
+        return new ChunkTile(this, x, y);
+    }
+
+    /**
+     * @return das gepackte Feld, siehe {@link PackedTileStore}
+     */
+    public int getCell(int x, int y) {
+        int[] chunk = chunks[chunk(x, y)];
+        return chunk == null ? openSea(x, y, width, height) : chunk[offset(x, y)];
+    }
+
+    /**
+     * Setzt ein gepacktes Feld, siehe {@link PackedTileStore}. Offenes Meer in einem noch nicht angelegten Block
+     * legt ihn nicht an.
+     */
+    public void setCell(int x, int y, int cell) {
+        int index = chunk(x, y);
+        int[] chunk = chunks[index];
+        if (chunk == null) {
+            if (cell == openSea(x, y, width, height)) {
+                return;
+            }
+            chunk = allocate(index);
+        }
+        chunk[offset(x, y)] = cell;
+    }
+
+    /**
+     * Übernimmt alle Eigenschaften des Tiles für das Feld.
+     */
+    public void set(int x, int y, Tile tile) {
+        setCell(x, y, PackedTileStore.pack(tile));
+    }
+
+    /**
+     * @return Anzahl der bisher angelegten Blöcke
+     */
+    public int getAllocatedChunks() {
+        return allocated;
+    }
+
+    private int[] allocate(int index) {
+        int[] chunk = new int[CHUNK * CHUNK];
+        int x0 = (index % chunksPerRow) << CHUNK_SHIFT;
+        int y0 = (index / chunksPerRow) << CHUNK_SHIFT;
+        for (int y = y0; y < Math.min(y0 + CHUNK, height); y++) {
+            for (int x = x0; x < Math.min(x0 + CHUNK, width); x++) {
+                chunk[offset(x, y)] = openSea(x, y, width, height);
+            }
+        }
+        chunks[index] = chunk;
+        allocated++;
+        return chunk;
+    }
+
+    private int chunk(int x, int y) {
+        return (y >>> CHUNK_SHIFT) * chunksPerRow + (x >>> CHUNK_SHIFT);
+    }
+
+    private static int offset(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sicht auf ein Feld. Sie hält die Koordinaten statt des Blocks, weil der beim ersten Schreiben erst entsteht.
+     */
+    private static final class ChunkTile extends PackedTileStore.PackedTile {
+        private final ChunkedTileStore store;
+        private final int x;
+        private final int y;
+
+        private ChunkTile(ChunkedTileStore store, int x, int y) {
+            this.store = store;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        int cell() {
+            return store.getCell(x, y);
+        }
+
+        @Override
+        void cell(int cell) {
+            store.setCell(x, y, cell);
+        }
+    }
+}
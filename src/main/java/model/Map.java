@@ -4,10 +4,13 @@ import model.Ship.ActorType;
 import model.Tile.Direction;
 import model.Tile.FieldEffect;
 import model.Tile.FieldType;
+import util.MapFile;
 import util.SerializableMap;
+import util.StreamingMapLoader;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -15,6 +18,15 @@ import java.util.Random;
 public class Map {
     public static final int SCORE_GOLD_MULT = 9;
     public static final double SCORE_CYCLE_MULT = 0.1;
+    /**
+     * Sichtweite des Spielers: sichtbar ist jedes Feld mit Manhattan-Abstand höchstens 2 zum Schiff.
+     */
+    public static final int VISION_RANGE = 2;
+    /**
+     * Relative Lage der sichtbaren Felder zum Schiff, in Leserichtung.
+     */
+    private static final int[] VISIBLE_DX = {0, -1, 0, 1, -2, -1, 0, 1, 2, -1, 0, 1, 0};
+    private static final int[] VISIBLE_DY = {-2, -1, -1, -1, 0, 0, 0, 0, 0, 1, 1, 1, 2};
     private final int height;
     private final int width;
     private int numPorts;
@@ -25,59 +37,57 @@ public class Map {
     private Coordinate startPosition;
     private Ship clientShip;
     private List<Pirate> pirates;
-    private Tile[][] tiles;
+    /**
+     * Piraten nach ID, für {@link #getPirate(int)}.
+     */
+    private Pirate[] piratesById;
+    /**
+     * Pro Feld (y * width + x) die ID + 1 des lebenden Piraten darauf, Felder ohne Piraten fehlen.
+     */
+    private CellIndex pirateCells;
+    private TileStore tiles;
+    private Coordinate visibleFrom;
+    private List<Coordinate> visibleCoordinates;
 
     public Map(int height, int width) {
         this.height = height;
         this.width = width;
         maxCycles = height * width * 2;
         cycles = 0;
-        pirates = new ArrayList<>();
+        setPirates(new ArrayList<>());
     }
 
     public static Map fromJson(String path) throws IOException {
         return SerializableMap.fromJSON(path).toMapValid();
     }
 
+    /**
+     * Lädt eine Karte im JSON-Format oder eine mit {@link MapFile} vorab übersetzte, je nach Inhalt der Datei.
+     * Übersetzte Karten werden nicht noch einmal geprüft.
+     */
+    public static Map load(String path) throws IOException {
+        return MapFile.isCompiled(path) ? MapFile.read(path) : fromJson(path);
+    }
+
+    /**
+     * @param large im Modus für große Karten laden, siehe {@link StreamingMapLoader}
+     */
+    public static Map load(String path, boolean large) throws IOException {
+        return large ? StreamingMapLoader.load(path) : load(path);
+    }
+
     /**
      * @return List mit allen vom Spieler aus sichbaren Koordinaten in Leserichtung.
      * @see #getVisiblePlayerTiles()
      */
     public static List<Coordinate> getVisiblePlayerCoordinatesAbsolute(int x, int y, int width, int height) {
-        List<Coordinate> visibleCoordinates = new ArrayList<>();
-        int dumpX = x;
-        int dumpY = y - 2;
-        if (validPosition(dumpX, dumpY, width, height)) {
-            visibleCoordinates.add(new Coordinate(dumpX, dumpY));
-        }
-        dumpY++;
-        dumpX--;
-        for (int i = 0; i < 3; i++) {
-            if (validPosition(dumpX, dumpY, width, height)) {
-                visibleCoordinates.add(new Coordinate(dumpX, dumpY));
-            }
-            dumpX++;
-        }
-        dumpY++;
-        dumpX -= 4;
-        for (int i = 0; i < 5; i++) {
-            if (validPosition(dumpX, dumpY, width, height)) {
-                visibleCoordinates.add(new Coordinate(dumpX, dumpY));
+        List<Coordinate> visibleCoordinates = new ArrayList<>(VISIBLE_DX.length);
+        for (int i = 0; i < VISIBLE_DX.length; i++) {
+            int visibleX = x + VISIBLE_DX[i];
+            int visibleY = y + VISIBLE_DY[i];
+            if (validPosition(visibleX, visibleY, width, height)) {
+                visibleCoordinates.add(new Coordinate(visibleX, visibleY));
             }
-            dumpX++;
-        }
-        dumpY++;
-        dumpX -= 4;
-        for (int i = 0; i < 3; i++) {
-            if (validPosition(dumpX, dumpY, width, height)) {
-                visibleCoordinates.add(new Coordinate(dumpX, dumpY));
-            }
-            dumpX++;
-        }
-        dumpY++;
-        dumpX -= 2;
-        if (validPosition(dumpX, dumpY, width, height)) {
-            visibleCoordinates.add(new Coordinate(dumpX, dumpY));
         }
         return visibleCoordinates;
     }
@@ -122,26 +132,100 @@ public class Map {
         return pirates;
     }
 
+    /**
+     * Übernimmt die Piraten und baut daraus die Indizes nach ID und Feld auf. Positionen von Piraten dürfen
+     * danach nur noch über {@link #movePirate(Pirate, Coordinate)} geändert werden.
+     */
     public void setPirates(List<Pirate> pirates) {
         this.pirates = pirates;
+        int maxId = -1;
+        for (Pirate pirate : pirates) {
+            maxId = Math.max(maxId, pirate.getID());
+        }
+        piratesById = new Pirate[maxId + 1];
+        pirateCells = new CellIndex(width * height, pirates.size());
+        indexPirates();
+    }
+
+    /**
+     * Baut die Indizes neu auf, nachdem Position oder Leben von Piraten an {@link #movePirate} vorbei geändert wurden.
+     * Die IDs müssen dieselben geblieben sein.
+     */
+    void reindexPirates() {
+        pirateCells.clear();
+        indexPirates();
+    }
+
+    private void indexPirates() {
+        for (Pirate pirate : pirates) {
+            piratesById[pirate.getID()] = pirate;
+            if (!pirate.isDead()) {
+                pirateCells.put(cell(pirate.getPosition()), pirate.getID() + 1);
+            }
+        }
+    }
+
+    /**
+     * @return der Pirat mit der gegebenen ID oder null
+     */
+    public Pirate getPirate(int id) {
+        return id >= 0 && id < piratesById.length ? piratesById[id] : null;
     }
 
     /**
-     * Gibt den Piraten mit den gegebenen Koordinaten zurück.
+     * Gibt den lebenden Piraten mit den gegebenen Koordinaten zurück.
      */
     public Pirate getPirateAtCoordinate(int x, int y) {
-        return pirates.stream()
-                .filter(pirate -> pirate.getPosition().equals(new Coordinate(x, y)))
-                .findAny()
-                .orElse(null);
+        if (!validPosition(x, y, width, height)) {
+            return null;
+        }
+        int id = pirateCells.get(y * width + x) - 1;
+        return id < 0 ? null : piratesById[id];
+    }
+
+    /**
+     * Setzt den Piraten auf das Zielfeld und hält dabei die Tiles und den Index der Felder aktuell.
+     */
+    public void movePirate(Pirate pirate, Coordinate target) {
+        Coordinate position = pirate.getPosition();
+        getTile(position.getxCoordinate(), position.getyCoordinate()).setPirate(false);
+        if (pirateCells.get(cell(position)) == pirate.getID() + 1) {
+            pirateCells.remove(cell(position));
+        }
+        pirate.setPosition(target);
+        getTile(target.getxCoordinate(), target.getyCoordinate()).setPirate(true);
+        pirateCells.put(cell(target), pirate.getID() + 1);
+    }
+
+    private int cell(Coordinate coordinate) {
+        return coordinate.getyCoordinate() * width + coordinate.getxCoordinate();
     }
 
     public void setTiles(Tile[][] tiles) {
-        this.tiles = tiles.clone();
+        this.tiles = new ObjectTileStore(tiles.clone());
+    }
+
+    public void setTileStore(TileStore tiles) {
+        this.tiles = tiles;
+    }
+
+    public TileStore getTileStore() {
+        return tiles;
+    }
+
+    /**
+     * Ersetzt die Tile-Objekte durch einen {@link PackedTileStore} mit einem int pro Feld.
+     * {@link #getTile(int, int)} liefert danach Sichten auf die gepackten Felder. Ein {@link ChunkedTileStore} ist
+     * bereits gepackt und bleibt.
+     */
+    public void packTiles() {
+        if (!(tiles instanceof PackedTileStore || tiles instanceof ChunkedTileStore)) {
+            tiles = PackedTileStore.of(tiles);
+        }
     }
 
     public Tile getTile(int x, int y) {
-        return tiles[y][x];
+        return tiles.get(x, y);
     }
 
     public int getHeight() {
@@ -197,21 +281,21 @@ public class Map {
     }
 
     public void updateTile(int x, int y, Treasure treasure) {
-        tiles[y][x].setTreasure(treasure);
+        tiles.get(x, y).setTreasure(treasure);
     }
 
     public void updateTile(int x, int y, FieldEffect effect) {
-        tiles[y][x].setEffect(effect);
+        tiles.get(x, y).setEffect(effect);
     }
 
     public Tile getPlayerTile() {
-        return tiles[clientShip.getPosition().getyCoordinate()][clientShip.getPosition().getxCoordinate()];
+        return tiles.get(clientShip.getPosition().getxCoordinate(), clientShip.getPosition().getyCoordinate());
     }
 
     public Tile getRelativeTile(Direction direction) {
         Coordinate currentPosition = clientShip.getPosition();
         Coordinate desiredPosition = currentPosition.coordinatesOf(direction);
-        return tiles[desiredPosition.getyCoordinate()][desiredPosition.getxCoordinate()];
+        return tiles.get(desiredPosition.getxCoordinate(), desiredPosition.getyCoordinate());
     }
 
     /**
@@ -227,8 +311,32 @@ public class Map {
         return visibleTiles;
     }
 
+    /**
+     * Die Liste wird erst neu berechnet, wenn sich das Schiff bewegt hat, und darf nicht verändert werden.
+     * Für einzelne Felder ist {@link #isVisibleToPlayer(int, int)} günstiger.
+     */
     public List<Coordinate> getVisiblePlayerCoordinates() {
-        return getVisiblePlayerCoordinatesAbsolute(getShipXCoordinate(), getShipYCoordinate(), width, height);
+        Coordinate position = clientShip.getPosition();
+        if (!position.equals(visibleFrom)) {
+            visibleCoordinates = Collections.unmodifiableList(getVisiblePlayerCoordinatesAbsolute(
+                    position.getxCoordinate(), position.getyCoordinate(), width, height));
+            visibleFrom = position;
+        }
+        return visibleCoordinates;
+    }
+
+    /**
+     * Gleichbedeutend mit {@code getVisiblePlayerCoordinates().contains(new Coordinate(x, y))}, aber ohne
+     * Liste und ohne Allokation.
+     */
+    public boolean isVisibleToPlayer(int x, int y) {
+        Coordinate position = clientShip.getPosition();
+        return validPosition(x, y, width, height)
+                && Math.abs(x - position.getxCoordinate()) + Math.abs(y - position.getyCoordinate()) <= VISION_RANGE;
+    }
+
+    public boolean isVisibleToPlayer(Coordinate coordinate) {
+        return isVisibleToPlayer(coordinate.getxCoordinate(), coordinate.getyCoordinate());
     }
 
     public boolean hasGameEnded() {
@@ -240,16 +348,14 @@ public class Map {
         int x = ran % width;
         int y = (int) Math.floor(ran / (double) width);
         Tile target = getTile(x, y);
-        Coordinate targetCoordinate = new Coordinate(x, y);
-        if (target.getFieldType() != FieldType.HARBOR && !target.isPirate() && target.getEffect() == FieldEffect.NONE && !getVisiblePlayerCoordinates().contains(targetCoordinate)) {
+        if (target.getFieldType() != FieldType.HARBOR && !target.isPirate() && target.getEffect() == FieldEffect.NONE && !isVisibleToPlayer(x, y)) {
             target.setEffect(FieldEffect.STORM);
         }
         ran = random.nextInt(height * width);
         x = ran % width;
         y = (int) Math.floor(ran / (double) width);
         target = getTile(x, y);
-        targetCoordinate = new Coordinate(x, y);
-        if (target.getFieldType() != FieldType.HARBOR && !target.isPirate() && target.getEffect() == FieldEffect.NONE && !getVisiblePlayerCoordinates().contains(targetCoordinate)) {
+        if (target.getFieldType() != FieldType.HARBOR && !target.isPirate() && target.getEffect() == FieldEffect.NONE && !isVisibleToPlayer(x, y)) {
             target.setEffect(FieldEffect.SWIRL);
         }
     }
@@ -260,15 +366,15 @@ public class Map {
         }
         Tile shootField = getRelativeTile(direction);
         if (shootField.isPirate()) {
-            Coordinate shootFieldPosition = new Coordinate(clientShip.getPosition().getxCoordinate(), clientShip.getPosition().getyCoordinate()).coordinatesOf(direction);
-            for (Pirate pirate : pirates) {
-                if (pirate.getPosition().getxCoordinate() == shootFieldPosition.getxCoordinate() && pirate.getPosition().getyCoordinate() == shootFieldPosition.getyCoordinate()) {
-                    pirate.damage();
-                    if (pirate.getLife() == 0) {
-                        shootField.setPirate(false);
-                    }
-                    return true;
+            Coordinate shootFieldPosition = clientShip.getPosition().coordinatesOf(direction);
+            Pirate pirate = getPirateAtCoordinate(shootFieldPosition.getxCoordinate(), shootFieldPosition.getyCoordinate());
+            if (pirate != null) {
+                pirate.damage();
+                if (pirate.getLife() == 0) {
+                    shootField.setPirate(false);
+                    pirateCells.remove(cell(shootFieldPosition));
                 }
+                return true;
             }
         }
         return false;
@@ -282,12 +388,25 @@ public class Map {
         }
     }
 
+    /**
+     * @return der Zustand des Spiels als flache Kopie, siehe {@link MapSnapshot}
+     */
+    public MapSnapshot snapshot() {
+        return MapSnapshot.of(this);
+    }
+
+    /**
+     * Setzt das Spiel auf einen mit {@link #snapshot()} gesicherten Zustand derselben Karte zurück.
+     */
+    public void restore(MapSnapshot snapshot) {
+        snapshot.restoreInto(this);
+    }
+
     public Tile getPirateTile(int id) {
-        for (Pirate pirate : pirates) {
-            if (pirate.getID() == id) {
-                return tiles[pirate.getPosition().getyCoordinate()][pirate.getPosition().getxCoordinate()];
-            }
+        Pirate pirate = getPirate(id);
+        if (pirate == null) {
+            return null;
         }
-        return null;
+        return tiles.get(pirate.getPosition().getxCoordinate(), pirate.getPosition().getyCoordinate());
     }
 }
@@ -0,0 +1,427 @@
+package model;
+
+import model.Ship.ActorType;
+import model.Tile.FieldEffect;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unveränderliche Kopie des gesamten Spielzustands einer {@link Map}: Tiles, Schiff samt Munition und Schätzen,
+ * Piraten und Zähler. Alles liegt in flachen int-Arrays, die Tiles gepackt wie in {@link PackedTileStore}; ein
+ * Snapshot kostet also im Wesentlichen eine Array-Kopie statt eines tiefen Objektgraphen.
+ * <p>
+ * Ein Snapshot kann beliebig oft mit {@link Map#restore(MapSnapshot)} in eine Karte derselben Größe zurückgespielt
+ * werden, etwa um in einer Suche von einem Zustand aus mehrere Züge auszuprobieren. Dabei werden die vorhandenen
+ * Objekte der Karte weiterverwendet, wo es geht. Mit {@link #toBytes()} und {@link #fromBytes(byte[])} lässt er sich
+ * speichern und mit {@link #toMap()} in einem neuen Prozess wieder zu einer Karte machen.
+ * <p>
+ * Schätze auf Tiles dürfen wie im {@link PackedTileStore} höchstens den Wert 65535 haben.
+ */
+public final class MapSnapshot {
+    private static final int MAGIC = 0x4D535331; // "MSS1"
+    private static final Ammunition AMMUNITION = new Ammunition();
+    private static final int TREASURE_SLOTS = 3;
+    private static final int SHIP_X = 0;
+    private static final int SHIP_Y = 1;
+    private static final int HEALTH = 2;
+    private static final int GOLD = 3;
+    private static final int LOADED = 4;
+    private static final int STORM_PENALTY = 5;
+    private static final int AMMUNITION_COUNT = 6;
+    private static final int TREASURES = 7;
+    private static final int PIRATE_FIELDS = 4;
+
+    private int width;
+    private int height;
+    private boolean packed;
+    private int[] cells;
+    private int cycles;
+    private int maxCycles;
+    private int numTreasures;
+    private int numPorts;
+    private boolean gameStarted;
+    private Coordinate startPosition;
+    private ActorType shipType;
+    private String shipName;
+    private int[] ship;
+    private int[] pirates;
+
+    private MapSnapshot() {
+    }
+
+    /**
+     * Sichert den aktuellen Zustand der Karte.
+     */
+    public static MapSnapshot of(Map map) {
+        MapSnapshot res = new MapSnapshot();
+        res.width = map.getWidth();
+        res.height = map.getHeight();
+        TileStore tiles = map.getTileStore();
+        res.packed = tiles instanceof PackedTileStore || tiles instanceof ChunkedTileStore;
+        if (tiles instanceof PackedTileStore) {
+            res.cells = ((PackedTileStore) tiles).cells().clone();
+        } else if (tiles instanceof ChunkedTileStore) {
+            ChunkedTileStore chunked = (ChunkedTileStore) tiles;
+            res.cells = new int[res.width * res.height];
+            for (int y = 0; y < res.height; y++) {
+                for (int x = 0; x < res.width; x++) {
+                    res.cells[y * res.width + x] = chunked.getCell(x, y);
+                }
+            }
+        } else {
+            res.cells = new int[res.width * res.height];
+            for (int y = 0; y < res.height; y++) {
+                for (int x = 0; x < res.width; x++) {
+                    res.cells[y * res.width + x] = PackedTileStore.pack(tiles.get(x, y));
+                }
+            }
+        }
+        res.cycles = map.getCycles();
+        res.maxCycles = map.getMaxCycles();
+        res.numTreasures = map.getNumTreasures();
+        res.numPorts = map.getNumPorts();
+        res.gameStarted = map.isGameStarted();
+        res.startPosition = map.getStartPosition();
+
+        Ship clientShip = map.getClientShip();
+        if (clientShip != null) {
+            res.shipType = clientShip.getActorType();
+            res.shipName = clientShip.getName();
+            int[] ship = new int[TREASURES + TREASURE_SLOTS];
+            ship[SHIP_X] = clientShip.getPosition().getxCoordinate();
+            ship[SHIP_Y] = clientShip.getPosition().getyCoordinate();
+            ship[HEALTH] = clientShip.getHealth();
+            ship[GOLD] = clientShip.getGold();
+            ship[LOADED] = clientShip.isLoaded() ? 1 : 0;
+            ship[STORM_PENALTY] = clientShip.getStormPenalty();
+            ship[AMMUNITION_COUNT] = clientShip.getAmmunitionStorage().getSize();
+            TreasureStorage storage = clientShip.getTreasureStorage();
+            for (int i = 0; storage != null && i < TREASURE_SLOTS; i++) {
+                ship[TREASURES + i] = storage.hasTreasureAtIndex(i) ? storage.getTreasure(i).getValue() : 0;
+            }
+            res.ship = ship;
+        }
+
+        List<Pirate> mapPirates = map.getPirates();
+        res.pirates = new int[mapPirates.size() * PIRATE_FIELDS];
+        for (int i = 0; i < mapPirates.size(); i++) {
+            Pirate pirate = mapPirates.get(i);
+            res.pirates[i * PIRATE_FIELDS] = pirate.getID();
+            res.pirates[i * PIRATE_FIELDS + 1] = pirate.getPosition().getxCoordinate();
+            res.pirates[i * PIRATE_FIELDS + 2] = pirate.getPosition().getyCoordinate();
+            res.pirates[i * PIRATE_FIELDS + 3] = pirate.getLife();
+        }
+        return res;
+    }
+
+    /**
+     * Spielt den Zustand in eine Karte derselben Größe zurück. Tiles, Schiff und Piraten der Karte werden dabei
+     * überschrieben statt ersetzt, solange sie zum Snapshot passen.
+     *
+     * @throws IllegalArgumentException falls die Karte eine andere Größe hat oder ihre Tile-Ablage die Verbindungen
+     *                                  eines Feldes nicht ersetzen kann
+     */
+    public void restoreInto(Map map) {
+        if (map.getWidth() != width || map.getHeight() != height) {
+            throw new IllegalArgumentException(String.format("Snapshot (%dx%d) passt nicht zur Karte (%dx%d)",
+                    width, height, map.getWidth(), map.getHeight()));
+        }
+        restoreTiles(map.getTileStore());
+        restoreState(map);
+    }
+
+    /**
+     * Spielt alles außer den Tiles zurück.
+     */
+    private void restoreState(Map map) {
+        map.setCycles(cycles);
+        map.setMaxCycles(maxCycles);
+        map.setNumTreasures(numTreasures);
+        map.setNumPorts(numPorts);
+        map.setGameStarted(gameStarted);
+        map.setStartPosition(startPosition);
+        restoreShip(map);
+        restorePirates(map);
+    }
+
+    private void restoreTiles(TileStore tiles) {
+        if (tiles instanceof PackedTileStore) {
+            System.arraycopy(cells, 0, ((PackedTileStore) tiles).cells(), 0, cells.length);
+            return;
+        }
+        if (tiles instanceof ChunkedTileStore) {
+            ChunkedTileStore chunked = (ChunkedTileStore) tiles;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    chunked.setCell(x, y, cells[y * width + x]);
+                }
+            }
+            return;
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = cells[y * width + x];
+                Tile tile = tiles.get(x, y);
+                if (!PackedTileStore.sameGround(cell, PackedTileStore.pack(tile))) {
+                    if (!(tiles instanceof ObjectTileStore)) {
+                        throw new IllegalArgumentException(String.format("Feld (%d, %d) passt nicht zum Snapshot", x, y));
+                    }
+                    ((ObjectTileStore) tiles).set(x, y, PackedTileStore.unpack(cell));
+                    continue;
+                }
+                FieldEffect effect = PackedTileStore.effect(cell);
+                if (tile.getEffect() != effect) {
+                    tile.setEffect(effect);
+                }
+                tile.setPirate(PackedTileStore.isPirate(cell));
+                int value = PackedTileStore.treasure(cell);
+                Treasure treasure = tile.getTreasure();
+                if (value == 0) {
+                    if (treasure != null) {
+                        tile.setTreasure(null);
+                    }
+                } else if (treasure == null || treasure.getValue() != value) {
+                    tile.setTreasure(new Treasure(value));
+                }
+            }
+        }
+    }
+
+    private void restoreShip(Map map) {
+        if (shipType == null) {
+            map.setClientShip(null);
+            return;
+        }
+        Ship target = map.getClientShip();
+        Coordinate position = new Coordinate(ship[SHIP_X], ship[SHIP_Y]);
+        if (target == null || target.getActorType() != shipType || !target.getName().equals(shipName)) {
+            target = shipType == ActorType.BARQUE ? new Barque(position, shipName) : new Cutter(position, shipName);
+            map.setClientShip(target);
+        } else if (!target.getPosition().equals(position)) {
+            target.setPosition(position);
+        }
+        target.setHealth(ship[HEALTH]);
+        target.setGold(ship[GOLD]);
+        target.setLoaded(ship[LOADED] != 0);
+        target.setStormPenalty(ship[STORM_PENALTY]);
+
+        AmmunitionStorage ammunition = target.getAmmunitionStorage();
+        while (ammunition.getSize() > ship[AMMUNITION_COUNT]) {
+            ammunition.remove();
+        }
+        while (ammunition.getSize() < ship[AMMUNITION_COUNT]) {
+            ammunition.add(AMMUNITION);
+        }
+
+        TreasureStorage storage = target.getTreasureStorage();
+        for (int i = 0; storage != null && i < TREASURE_SLOTS; i++) {
+            int value = ship[TREASURES + i];
+            Treasure treasure = storage.getTreasure(i);
+            if (value == 0) {
+                storage.set(i, null);
+            } else if (treasure == null || treasure.getValue() != value) {
+                storage.set(i, new Treasure(value));
+            }
+        }
+    }
+
+    private void restorePirates(Map map) {
+        int count = pirates.length / PIRATE_FIELDS;
+        List<Pirate> current = map.getPirates();
+        boolean sameIds = current.size() == count;
+        for (int i = 0; sameIds && i < count; i++) {
+            sameIds = current.get(i).getID() == pirates[i * PIRATE_FIELDS];
+        }
+        if (!sameIds) {
+            List<Pirate> restored = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Pirate pirate = new Pirate(new Coordinate(pirates[i * PIRATE_FIELDS + 1], pirates[i * PIRATE_FIELDS + 2]),
+                        pirates[i * PIRATE_FIELDS]);
+                pirate.setLife(pirates[i * PIRATE_FIELDS + 3]);
+                restored.add(pirate);
+            }
+            map.setPirates(restored);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            Pirate pirate = current.get(i);
+            int x = pirates[i * PIRATE_FIELDS + 1];
+            int y = pirates[i * PIRATE_FIELDS + 2];
+            Coordinate position = pirate.getPosition();
+            if (position.getxCoordinate() != x || position.getyCoordinate() != y) {
+                pirate.setPosition(new Coordinate(x, y));
+            }
+            pirate.setLife(pirates[i * PIRATE_FIELDS + 3]);
+        }
+        map.reindexPirates();
+    }
+
+    /**
+     * Baut eine neue Karte mit diesem Zustand, mit derselben Art Tile-Ablage wie die gesicherte.
+     */
+    public Map toMap() {
+        return toMap(packed);
+    }
+
+    /**
+     * Baut eine neue Karte mit diesem Zustand.
+     *
+     * @param packed die Tiles in einem {@link PackedTileStore} statt als einzelne Objekte ablegen
+     */
+    public Map toMap(boolean packed) {
+        Map map = new Map(height, width);
+        if (packed) {
+            map.setTileStore(new PackedTileStore(width, height));
+        } else {
+            Tile[][] tiles = new Tile[height][width];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    tiles[y][x] = PackedTileStore.unpack(cells[y * width + x]);
+                }
+            }
+            map.setTiles(tiles);
+        }
+        restoreInto(map);
+        return map;
+    }
+
+    /**
+     * Baut eine neue Karte mit diesem Zustand in einem {@link ChunkedTileStore}. Offenes Meer legt darin keine Blöcke an.
+     */
+    public Map toChunkedMap() {
+        Map map = new Map(height, width);
+        map.setTileStore(new ChunkedTileStore(width, height));
+        restoreInto(map);
+        return map;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Binärformat, Big Endian: {@code [MAGIC][Höhe][Breite][gepackt:byte][Zyklen][maxZyklen][Schätze][Häfen]
+     * [gestartet:byte][Start x][Start y][Schiffstyp:byte, -1 für keins][Name][Schiff][Piraten][Tiles]}, Name als
+     * Länge und UTF-8, die int-Arrays als Länge und Inhalt.
+     */
+    public byte[] toBytes() {
+        byte[] name = shipName == null ? new byte[0] : shipName.getBytes(StandardCharsets.UTF_8);
+        int shipLength = ship == null ? 0 : ship.length;
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 10 + 3 + name.length + 4 * (3 + shipLength + pirates.length + cells.length));
+        buffer.putInt(MAGIC).putInt(height).putInt(width).put((byte) (packed ? 1 : 0))
+                .putInt(cycles).putInt(maxCycles).putInt(numTreasures).putInt(numPorts)
+                .put((byte) (gameStarted ? 1 : 0))
+                .putInt(startPosition == null ? -1 : startPosition.getxCoordinate())
+                .putInt(startPosition == null ? -1 : startPosition.getyCoordinate())
+                .put((byte) (shipType == null ? -1 : shipType.ordinal()))
+                .putInt(name.length).put(name);
+        putInts(buffer, ship == null ? new int[0] : ship);
+        putInts(buffer, pirates);
+        putInts(buffer, cells);
+        return buffer.array();
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.putInt(values.length);
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    /**
+     * @throws IllegalArgumentException falls die Daten kein mit {@link #toBytes()} geschriebener Snapshot sind
+     */
+    public static MapSnapshot fromBytes(byte[] bytes) {
+        return fromBuffer(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Liest einen Snapshot ab der Position des Puffers, etwa direkt aus einer eingeblendeten Datei. Der Puffer muss
+     * Big Endian sein und steht danach hinter dem Snapshot.
+     *
+     * @throws IllegalArgumentException falls die Daten kein mit {@link #toBytes()} geschriebener Snapshot sind
+     */
+    public static MapSnapshot fromBuffer(ByteBuffer buffer) {
+        MapSnapshot res = readState(buffer);
+        res.cells = getInts(buffer);
+        if (res.cells.length != res.width * res.height) {
+            throw new IllegalArgumentException("Die Tiles des Snapshots passen nicht zu seiner Größe");
+        }
+        return res;
+    }
+
+    /**
+     * Wie {@code fromBuffer(buffer).toMap()}, aber die Tiles wandern direkt aus dem Puffer in einen
+     * {@link ChunkedTileStore}, ohne Array über die ganze Karte. Offenes Meer legt dabei keine Blöcke an.
+     *
+     * @throws IllegalArgumentException falls die Daten kein mit {@link #toBytes()} geschriebener Snapshot sind
+     */
+    public static Map readChunkedMap(ByteBuffer buffer) {
+        MapSnapshot res = readState(buffer);
+        if (buffer.getInt() != res.width * res.height) {
+            throw new IllegalArgumentException("Die Tiles des Snapshots passen nicht zu seiner Größe");
+        }
+        ChunkedTileStore tiles = new ChunkedTileStore(res.width, res.height);
+        IntBuffer cells = buffer.asIntBuffer();
+        for (int y = 0; y < res.height; y++) {
+            for (int x = 0; x < res.width; x++) {
+                tiles.setCell(x, y, cells.get());
+            }
+        }
+        buffer.position(buffer.position() + 4 * cells.position());
+        Map map = new Map(res.height, res.width);
+        map.setTileStore(tiles);
+        res.restoreState(map);
+        return map;
+    }
+
+    /**
+     * Liest alles bis auf die Tiles.
+     */
+    private static MapSnapshot readState(ByteBuffer buffer) {
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Die Daten sind kein Snapshot");
+        }
+        MapSnapshot res = new MapSnapshot();
+        res.height = buffer.getInt();
+        res.width = buffer.getInt();
+        res.packed = buffer.get() != 0;
+        res.cycles = buffer.getInt();
+        res.maxCycles = buffer.getInt();
+        res.numTreasures = buffer.getInt();
+        res.numPorts = buffer.getInt();
+        res.gameStarted = buffer.get() != 0;
+        int startX = buffer.getInt();
+        int startY = buffer.getInt();
+        res.startPosition = startX < 0 ? null : new Coordinate(startX, startY);
+        byte type = buffer.get();
+        res.shipType = type < 0 ? null : ActorType.values()[type];
+        byte[] name = new byte[buffer.getInt()];
+        buffer.get(name);
+        int[] ship = getInts(buffer);
+        if (res.shipType != null) {
+            res.shipName = new String(name, StandardCharsets.UTF_8);
+            res.ship = ship;
+        }
+        res.pirates = getInts(buffer);
+        return res;
+    }
+
+    private static int[] getInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * values.length);
+        return values;
+    }
+}
@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * Ursprüngliche Ablage: ein eigenes {@link Tile}-Objekt pro Feld.
+ */
+public final class ObjectTileStore implements TileStore {
+    private final Tile[][] tiles;
+
+    /**
+     * @param tiles Tiles in der Form {@code tiles[y][x]}, das Array wird nicht kopiert
+     */
+    public ObjectTileStore(Tile[][] tiles) {
+        this.tiles = tiles;
+    }
+
+    @Override
+    public Tile get(int x, int y) {
+        return tiles[y][x];
+    }
+
+    void set(int x, int y, Tile tile) {
+        tiles[y][x] = tile;
+    }
+
+    @Override
+    public int getWidth() {
+        return tiles.length == 0 ? 0 : tiles[0].length;
+    }
+
+    @Override
+    public int getHeight() {
+        return tiles.length;
+    }
+}
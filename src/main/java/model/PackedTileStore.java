@@ -0,0 +1,266 @@
+package model;
+
+import model.Tile.Direction;
+import model.Tile.FieldEffect;
+import model.Tile.FieldType;
+
+/**
+ * Speicherschonende Ablage: jedes Feld ist ein einziges int in einem flachen Array.
+ * <pre>
+ *  Bit  0-3   Verbindungen (Nord, Ost, Süd, West)
+ *  Bit  4-5   FieldType
+ *  Bit  6-7   FieldEffect
+ *  Bit  8     Pirat
+ *  Bit 16-31  Wert des Schatzes, 0 für keinen
+ * </pre>
+ * {@link #get(int, int)} liefert eine leichtgewichtige Sicht ({@link PackedTile}) auf das Feld, die bei jedem Aufruf
+ * neu erzeugt wird und selbst keine Daten hält.
+ */
+public final class PackedTileStore implements TileStore {
+    static final int NORTH = 1;
+    static final int EAST = 1 << 1;
+    static final int SOUTH = 1 << 2;
+    static final int WEST = 1 << 3;
+    private static final int TYPE_SHIFT = 4;
+    private static final int EFFECT_SHIFT = 6;
+    private static final int ENUM_MASK = 0b11;
+    private static final int PIRATE = 1 << 8;
+    private static final int TREASURE_SHIFT = 16;
+    private static final int MAX_TREASURE = 0xFFFF;
+
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+    private static final FieldEffect[] FIELD_EFFECTS = FieldEffect.values();
+
+    private final int[] cells;
+    private final int width;
+    private final int height;
+
+    public PackedTileStore(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new int[width * height];
+    }
+
+    /**
+     * Packt alle Tiles einer bestehenden Ablage.
+     */
+    public static PackedTileStore of(TileStore source) {
+        PackedTileStore res = new PackedTileStore(source.getWidth(), source.getHeight());
+        for (int y = 0; y < res.height; y++) {
+            for (int x = 0; x < res.width; x++) {
+                res.cells[y * res.width + x] = pack(source.get(x, y));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return true, falls die Felder dieselben Verbindungen und denselben FieldType haben, also dasselbe
+     * unveränderliche Stück Karte sind
+     */
+    static boolean sameGround(int cell, int other) {
+        return ((cell ^ other) & (NORTH | EAST | SOUTH | WEST | ENUM_MASK << TYPE_SHIFT)) == 0;
+    }
+
+    /**
+     * Baut ein eigenständiges Tile aus einem gepackten Feld.
+     */
+    static Tile unpack(int cell) {
+        int value = cell >>> TREASURE_SHIFT;
+        return new Tile(FIELD_EFFECTS[(cell >>> EFFECT_SHIFT) & ENUM_MASK], FIELD_TYPES[(cell >>> TYPE_SHIFT) & ENUM_MASK],
+                (cell & NORTH) != 0, (cell & EAST) != 0, (cell & SOUTH) != 0, (cell & WEST) != 0, (cell & PIRATE) != 0,
+                value == 0 ? null : new Treasure(value));
+    }
+
+    static FieldEffect effect(int cell) {
+        return FIELD_EFFECTS[(cell >>> EFFECT_SHIFT) & ENUM_MASK];
+    }
+
+    static boolean isPirate(int cell) {
+        return (cell & PIRATE) != 0;
+    }
+
+    static int treasure(int cell) {
+        return cell >>> TREASURE_SHIFT;
+    }
+
+    static int pack(Tile tile) {
+        Treasure treasure = tile.getTreasure();
+        int cell = (tile.isHasNorth() ? NORTH : 0)
+                | (tile.isHasEast() ? EAST : 0)
+                | (tile.isHasSouth() ? SOUTH : 0)
+                | (tile.isHasWest() ? WEST : 0)
+                | (tile.getFieldType().ordinal() << TYPE_SHIFT)
+                | (tile.getEffect().ordinal() << EFFECT_SHIFT)
+                | (tile.isPirate() ? PIRATE : 0);
+        return treasure == null ? cell : withTreasure(cell, treasure.getValue());
+    }
+
+    private static int withTreasure(int cell, int value) {
+        if (value < 0 || value > MAX_TREASURE) {
+            throw new IllegalArgumentException("Schatzwert passt nicht in einen PackedTileStore: " + value);
+        }
+        return (cell & ~(MAX_TREASURE << TREASURE_SHIFT)) | (value << TREASURE_SHIFT);
+    }
+
+    @Override
+    public Tile get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new ArrayIndexOutOfBoundsException(String.format("(%d, %d) liegt außerhalb der Karte", x, y));
+        }
+        return new ArrayTile(this, y * width + x);
+    }
+
+    /**
+     * @return alle gepackten Felder zeilenweise, ohne Kopie
+     */
+    int[] cells() {
+        return cells;
+    }
+
+    /**
+     * @return das gepackte Feld, siehe Klassenbeschreibung
+     */
+    public int getCell(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sicht auf ein Feld eines {@link PackedTileStore}.
+     */
+    private static final class ArrayTile extends PackedTile {
+        private final PackedTileStore store;
+        private final int index;
+
+        private ArrayTile(PackedTileStore store, int index) {
+            this.store = store;
+            this.index = index;
+        }
+
+        @Override
+        int cell() {
+            return store.cells[index];
+        }
+
+        @Override
+        void cell(int cell) {
+            store.cells[index] = cell;
+        }
+    }
+
+    /**
+     * Sicht auf ein gepacktes Feld. Alle Zugriffe gehen direkt auf das int, das die Unterklasse liefert,
+     * die geerbten Felder von {@link Tile} bleiben unbenutzt.
+     */
+    abstract static class PackedTile extends Tile {
+
+        PackedTile() {
+            super(FieldEffect.NONE, FieldType.NORMAL, false, false, false, false, false, null);
+        }
+
+        abstract int cell();
+
+        abstract void cell(int cell);
+
+        private void set(int mask, boolean value) {
+            cell(value ? cell() | mask : cell() & ~mask);
+        }
+
+        @Override
+        public FieldEffect getEffect() {
+            return FIELD_EFFECTS[(cell() >>> EFFECT_SHIFT) & ENUM_MASK];
+        }
+
+        @Override
+        public void setEffect(FieldEffect effect) {
+            cell((cell() & ~(ENUM_MASK << EFFECT_SHIFT)) | (effect.ordinal() << EFFECT_SHIFT));
+        }
+
+        @Override
+        public FieldType getFieldType() {
+            return FIELD_TYPES[(cell() >>> TYPE_SHIFT) & ENUM_MASK];
+        }
+
+        @Override
+        public void setFieldType(FieldType fieldType) {
+            cell((cell() & ~(ENUM_MASK << TYPE_SHIFT)) | (fieldType.ordinal() << TYPE_SHIFT));
+        }
+
+        @Override
+        public boolean isHasNorth() {
+            return (cell() & NORTH) != 0;
+        }
+
+        @Override
+        public boolean isHasEast() {
+            return (cell() & EAST) != 0;
+        }
+
+        @Override
+        public boolean isHasSouth() {
+            return (cell() & SOUTH) != 0;
+        }
+
+        @Override
+        public boolean isHasWest() {
+            return (cell() & WEST) != 0;
+        }
+
+        @Override
+        public void addDirection(Direction direction) {
+            switch (direction) {
+                case NORTH:
+                    set(NORTH, true);
+                    break;
+
+                case EAST:
+                    set(EAST, true);
+                    break;
+
+                case SOUTH:
+                    set(SOUTH, true);
+                    break;
+
+                case WEST:
+                    set(WEST, true);
+                    break;
+
+                default:
+            }
+        }
+
+        @Override
+        public boolean isPirate() {
+            return (cell() & PIRATE) != 0;
+        }
+
+        @Override
+        public void setPirate(boolean pirate) {
+            set(PIRATE, pirate);
+        }
+
+        /**
+         * @return ein neuer Treasure mit dem gespeicherten Wert, {@code null} falls keiner auf dem Feld liegt
+         */
+        @Override
+        public Treasure getTreasure() {
+            int value = cell() >>> TREASURE_SHIFT;
+            return value == 0 ? null : new Treasure(value);
+        }
+
+        @Override
+        public void setTreasure(Treasure treasure) {
+            cell(withTreasure(cell(), treasure == null ? 0 : treasure.getValue()));
+        }
+    }
+}
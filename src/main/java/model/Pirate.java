@@ -26,6 +26,10 @@ public class Pirate {
         return life;
     }
 
+    void setLife(int life) {
+        this.life = life;
+    }
+
     /**
      * Fügt dem Piraten Schaden zu - reduziert also sein Leben um 1.
      */
@@ -50,23 +50,24 @@ public class Tile {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        //instanceof statt getClass(), damit Tiles aus einem PackedTileStore mit normalen Tiles vergleichbar sind
+        if (!(o instanceof Tile)) {
             return false;
         }
         Tile tile = (Tile) o;
-        return hasNorth == tile.hasNorth &&
-                hasEast == tile.hasEast &&
-                hasSouth == tile.hasSouth &&
-                hasWest == tile.hasWest &&
-                pirate == tile.pirate &&
-                effect == tile.effect &&
-                fieldType == tile.fieldType &&
-                Objects.equals(treasure, tile.treasure);
+        return isHasNorth() == tile.isHasNorth() &&
+                isHasEast() == tile.isHasEast() &&
+                isHasSouth() == tile.isHasSouth() &&
+                isHasWest() == tile.isHasWest() &&
+                isPirate() == tile.isPirate() &&
+                getEffect() == tile.getEffect() &&
+                getFieldType() == tile.getFieldType() &&
+                Objects.equals(getTreasure(), tile.getTreasure());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(effect, fieldType, hasNorth, hasEast, hasSouth, hasWest, pirate, treasure);
+        return Objects.hash(getEffect(), getFieldType(), isHasNorth(), isHasEast(), isHasSouth(), isHasWest(), isPirate(), getTreasure());
     }
 
     public FieldEffect getEffect() {
@@ -104,16 +105,16 @@ public class Tile {
     public boolean hasConnection(Direction direction) {
         switch (direction) {
             case NORTH:
-                return hasNorth;
+                return isHasNorth();
 
             case EAST:
-                return hasEast;
+                return isHasEast();
 
             case SOUTH:
-                return hasSouth;
+                return isHasSouth();
 
             case WEST:
-                return hasWest;
+                return isHasWest();
 
             default:
                 return true;
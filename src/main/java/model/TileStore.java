@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Ablage der Tiles einer {@link Map}.
+ * <p>
+ * Die Tiles sind über {@link #get(int, int)} veränderbar: Setter auf dem zurückgegebenen Tile wirken direkt auf die
+ * Karte, egal wie die Store-Implementierung die Daten intern hält.
+ */
+public interface TileStore {
+
+    /**
+     * @return das Tile an der Position, Änderungen daran landen in der Karte
+     */
+    Tile get(int x, int y);
+
+    int getWidth();
+
+    int getHeight();
+}
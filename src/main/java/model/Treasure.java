@@ -1,5 +1,7 @@
 package model;
 
+import java.util.Objects;
+
 public class Treasure {
     private int value;
 
@@ -14,4 +16,21 @@ public class Treasure {
     public void setValue(int value) {
         this.value = value;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Treasure treasure = (Treasure) o;
+        return value == treasure.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value);
+    }
 }
@@ -50,6 +50,10 @@ public class TreasureStorage extends Storage<Treasure> {
         content[treasureID] = null;
     }
 
+    void set(int treasureID, Treasure treasure) {
+        content[treasureID] = treasure;
+    }
+
     public Treasure getTreasure(int treasureID) {
         return content[treasureID];
     }
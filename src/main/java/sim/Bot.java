@@ -0,0 +1,27 @@
+package sim;
+
+import commands.Command;
+import commands.CommandFactory;
+import events.Event;
+import model.Map;
+
+import java.util.List;
+
+/**
+ * Ein Spieler für die Simulation. Bekommt nach jedem Schritt die Events, die ein Client über das Netz erhalten
+ * hätte, und darf zusätzlich die Karte lesen. Die Karte gehört der {@link controller.GameEngine} und darf nicht
+ * verändert werden.
+ * <p>
+ * Jedes Spiel bekommt eine eigene Instanz, Bots dürfen also Zustand haben.
+ */
+public interface Bot {
+
+    /**
+     * @param map      die aktuelle Karte
+     * @param events   die Events des letzten Schritts, nach der Registrierung also GameStarted, MapUpdates,
+     *                 NextCycle und ActNow
+     * @param commands Factory für die Commands
+     * @return der nächste Command
+     */
+    Command nextCommand(Map map, List<Event> events, CommandFactory<Command> commands);
+}
@@ -0,0 +1,98 @@
+package sim;
+
+/**
+ * Ergebnis eines simulierten Spiels.
+ */
+public final class GameResult {
+
+    /**
+     * Wie das Spiel geendet hat.
+     */
+    public enum Outcome {
+        /** über den Ausgang verlassen, nur dann gibt es Punkte */
+        ESCAPED,
+        /** Schiff gesunken */
+        SUNK,
+        /** keine Zyklen mehr übrig */
+        OUT_OF_CYCLES,
+        /** der Bot hat das Spiel nicht innerhalb der erlaubten Schritte beendet */
+        STALLED,
+        /** Bot oder Engine haben eine Exception geworfen */
+        ERROR
+    }
+
+    private final long seed;
+    private final Outcome outcome;
+    private final int score;
+    private final int mapScore;
+    private final int cycles;
+    private final int steps;
+    private final RuntimeException error;
+
+    /**
+     * @param score    die Punkte aus dem GameEnd, -1 für ein verlorenes Spiel
+     * @param mapScore {@link model.Map#computeScore()} bei Spielende
+     * @param cycles   der Zyklus, in dem das Spiel geendet hat
+     * @param steps    Anzahl der Commands des Bots
+     */
+    public GameResult(long seed, Outcome outcome, int score, int mapScore, int cycles, int steps) {
+        this(seed, outcome, score, mapScore, cycles, steps, null);
+    }
+
+    /**
+     * @param error die Exception von Bot oder Engine bei {@link Outcome#ERROR}, sonst null
+     */
+    public GameResult(long seed, Outcome outcome, int score, int mapScore, int cycles, int steps, RuntimeException error) {
+        this.seed = seed;
+        this.outcome = outcome;
+        this.score = score;
+        this.mapScore = mapScore;
+        this.cycles = cycles;
+        this.steps = steps;
+        this.error = error;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMapScore() {
+        return mapScore;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return die Exception, mit der das Spiel abgebrochen wurde, null falls es regulär geendet hat
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "GameResult{"
+                + "seed=" + seed
+                + ", outcome=" + outcome
+                + ", score=" + score
+                + ", mapScore=" + mapScore
+                + ", cycles=" + cycles
+                + ", steps=" + steps
+                + (error == null ? "" : ", error=" + error)
+                + '}';
+    }
+}
@@ -0,0 +1,103 @@
+package sim;
+
+import commands.Command;
+import commands.CommandFactory;
+import events.Event;
+import model.Map;
+import model.Tile.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Spielt eine feste Folge von Commands ab und beginnt danach wieder von vorne.
+ * <p>
+ * Das Skript besteht aus durch Komma getrennten Commands, Parameter folgen nach einem Doppelpunkt, z.B.
+ * {@code "move:east,move:north,pickup,fire:west,endturn"}. Bekannt sind {@code move:<richtung>},
+ * {@code fire:<richtung>}, {@code drop:<index>}, {@code restock:<anzahl>}, {@code endturn}, {@code repair},
+ * {@code pickup}, {@code sell}, {@code reload} und {@code leave}.
+ */
+public class ScriptedBot implements Bot {
+    private final List<Function<CommandFactory<Command>, Command>> script;
+    private int next;
+
+    private ScriptedBot(List<Function<CommandFactory<Command>, Command>> script) {
+        this.script = script;
+    }
+
+    /**
+     * @throws IllegalArgumentException falls das Skript einen unbekannten oder unvollständigen Command enthält
+     */
+    public static ScriptedBot parse(String script) {
+        List<Function<CommandFactory<Command>, Command>> steps = new ArrayList<>();
+        for (String step : script.split(",")) {
+            String[] parts = step.trim().toLowerCase(Locale.ROOT).split(":", 2);
+            String argument = parts.length > 1 ? parts[1].trim() : null;
+            steps.add(parseStep(parts[0].trim(), argument, step));
+        }
+        return new ScriptedBot(steps);
+    }
+
+    private static Function<CommandFactory<Command>, Command> parseStep(String name, String argument, String step) {
+        switch (name) {
+            case "move": {
+                Direction direction = direction(argument, step);
+                return commands -> commands.createMove(direction);
+            }
+            case "fire": {
+                Direction direction = direction(argument, step);
+                return commands -> commands.createFire(direction);
+            }
+            case "drop": {
+                int index = number(argument, step);
+                return commands -> commands.createDrop(index);
+            }
+            case "restock": {
+                int amount = number(argument, step);
+                return commands -> commands.createRestock(amount);
+            }
+            case "endturn":
+                return CommandFactory::createEndTurn;
+            case "repair":
+                return CommandFactory::createRepair;
+            case "pickup":
+                return CommandFactory::createPickup;
+            case "sell":
+                return CommandFactory::createSell;
+            case "reload":
+                return CommandFactory::createReload;
+            case "leave":
+                return CommandFactory::createLeave;
+            default:
+                throw new IllegalArgumentException("unknown command in script: " + step);
+        }
+    }
+
+    private static Direction direction(String argument, String step) {
+        if (argument == null) {
+            throw new IllegalArgumentException("missing direction in script: " + step);
+        }
+        try {
+            return Direction.valueOf(argument.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown direction in script: " + step, e);
+        }
+    }
+
+    private static int number(String argument, String step) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("missing or invalid number in script: " + step, e);
+        }
+    }
+
+    @Override
+    public Command nextCommand(Map map, List<Event> events, CommandFactory<Command> commands) {
+        Command command = script.get(next).apply(commands);
+        next = (next + 1) % script.size();
+        return command;
+    }
+}
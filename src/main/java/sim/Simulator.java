@@ -0,0 +1,152 @@
+package sim;
+
+import commands.Command;
+import commands.OwnCommandFactory;
+import controller.GameEngine;
+import events.Event;
+import events.GameEndEvent;
+import model.Map;
+import model.Ship.ActorType;
+import sim.GameResult.Outcome;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Spielt viele Spiele ohne Netzwerk parallel auf einem {@link ForkJoinPool}. Spiel Nummer i bekommt den Seed
+ * {@code firstSeed + i} für seine {@link GameEngine}, eine frische Karte und einen eigenen Bot. Ein Lauf mit
+ * denselben Seeds liefert deshalb unabhängig von der Anzahl der Threads dieselben Ergebnisse.
+ */
+public class Simulator {
+    /**
+     * Obergrenze für die Commands eines Spiels, damit ein Bot, der nie Aktionen verbraucht, den Lauf nicht aufhält.
+     */
+    public static final int DEFAULT_MAX_STEPS = 100_000;
+    private static final String PLAYER_NAME = "simulator";
+    /**
+     * Ab dieser Anzahl Spiele wird ein Teilbereich weiter aufgeteilt.
+     */
+    private static final int SPLIT_THRESHOLD = 16;
+
+    private final Supplier<Map> maps;
+    private final LongFunction<? extends Bot> bots;
+    private final ForkJoinPool pool;
+    private final OwnCommandFactory commands = new OwnCommandFactory();
+    private int maxSteps = DEFAULT_MAX_STEPS;
+    private Consumer<GameResult> listener = result -> { };
+
+    /**
+     * @param maps liefert für jedes Spiel eine neue, unabhängige Karte; wird parallel aufgerufen
+     * @param bots erzeugt den Bot eines Spiels aus dessen Seed
+     * @param pool führt die Spiele aus
+     */
+    public Simulator(Supplier<Map> maps, LongFunction<? extends Bot> bots, ForkJoinPool pool) {
+        this.maps = Objects.requireNonNull(maps);
+        this.bots = Objects.requireNonNull(bots);
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public void setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * @param listener bekommt jedes einzelne Ergebnis, sobald das Spiel beendet ist; wird von mehreren Threads
+     *                 gleichzeitig und in keiner festen Reihenfolge aufgerufen
+     */
+    public void setListener(Consumer<GameResult> listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Spielt die Seeds {@code firstSeed} bis {@code firstSeed + games - 1} und wartet auf alle Ergebnisse.
+     */
+    public Summary run(long firstSeed, long games) {
+        return pool.invoke(new Batch(firstSeed, firstSeed + games));
+    }
+
+    /**
+     * Spielt ein einzelnes Spiel im aufrufenden Thread.
+     */
+    public GameResult play(long seed) {
+        Map map = maps.get();
+        GameEngine engine = new GameEngine(map, seed);
+        int steps = 0;
+        try {
+            Bot bot = bots.apply(seed);
+            List<Event> events = engine.handle(commands.createRegister(PLAYER_NAME, ActorType.BARQUE));
+            while (!engine.isFinished()) {
+                if (steps == maxSteps) {
+                    return result(seed, Outcome.STALLED, map, GameEndEvent.LOST_SCORE, steps, null);
+                }
+                Command command = bot.nextCommand(map, events, commands);
+                events = engine.handle(command);
+                steps++;
+            }
+            int score = score(events);
+            Outcome outcome;
+            if (score >= 0) {
+                outcome = Outcome.ESCAPED;
+            } else if (map.getClientShip().isDead()) {
+                outcome = Outcome.SUNK;
+            } else {
+                outcome = Outcome.OUT_OF_CYCLES;
+            }
+            return result(seed, outcome, map, score, steps, null);
+        } catch (RuntimeException e) {
+            //Errors wie OutOfMemoryError laufen weiter und brechen den ganzen Lauf ab
+            return result(seed, Outcome.ERROR, map, GameEndEvent.LOST_SCORE, steps, e);
+        }
+    }
+
+    private static int score(List<Event> events) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (events.get(i) instanceof GameEndEvent) {
+                return ((GameEndEvent) events.get(i)).getScore();
+            }
+        }
+        return GameEndEvent.LOST_SCORE;
+    }
+
+    private static GameResult result(long seed, Outcome outcome, Map map, int score, int steps, RuntimeException error) {
+        int mapScore = map.getClientShip() == null ? 0 : map.computeScore();
+        return new GameResult(seed, outcome, score, mapScore, map.getCycles(), steps, error);
+    }
+
+    /**
+     * Ein Bereich von Seeds, der rekursiv halbiert wird, bis die Teile klein genug sind.
+     */
+    private final class Batch extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+        private final long from;
+        private final long to;
+
+        Batch(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                Summary summary = new Summary();
+                for (long seed = from; seed < to; seed++) {
+                    GameResult result = play(seed);
+                    listener.accept(result);
+                    summary.add(result);
+                }
+                return summary;
+            }
+            long middle = from + (to - from) / 2;
+            Batch left = new Batch(from, middle);
+            left.fork();
+            Summary right = new Batch(middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
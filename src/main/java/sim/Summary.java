@@ -0,0 +1,133 @@
+package sim;
+
+import sim.GameResult.Outcome;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Zusammenfassung beliebig vieler Spiele. Teilergebnisse mehrerer Threads werden mit {@link #merge(Summary)}
+ * zusammengeführt.
+ */
+public final class Summary {
+    private final long[] outcomes = new long[Outcome.values().length];
+    private long games;
+    private long scoreSum;
+    private int scoreMin = Integer.MAX_VALUE;
+    private int scoreMax = Integer.MIN_VALUE;
+    private long mapScoreSum;
+    private long cycleSum;
+    private int cycleMin = Integer.MAX_VALUE;
+    private int cycleMax = Integer.MIN_VALUE;
+    private long stepSum;
+    private GameResult best;
+    private GameResult firstError;
+
+    public void add(GameResult result) {
+        games++;
+        outcomes[result.getOutcome().ordinal()]++;
+        scoreSum += result.getScore();
+        scoreMin = Math.min(scoreMin, result.getScore());
+        scoreMax = Math.max(scoreMax, result.getScore());
+        mapScoreSum += result.getMapScore();
+        cycleSum += result.getCycles();
+        cycleMin = Math.min(cycleMin, result.getCycles());
+        cycleMax = Math.max(cycleMax, result.getCycles());
+        stepSum += result.getSteps();
+        if (best == null || result.getScore() > best.getScore()) {
+            best = result;
+        }
+        if (result.getError() != null && (firstError == null || result.getSeed() < firstError.getSeed())) {
+            firstError = result;
+        }
+    }
+
+    public Summary merge(Summary other) {
+        games += other.games;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] += other.outcomes[i];
+        }
+        scoreSum += other.scoreSum;
+        scoreMin = Math.min(scoreMin, other.scoreMin);
+        scoreMax = Math.max(scoreMax, other.scoreMax);
+        mapScoreSum += other.mapScoreSum;
+        cycleSum += other.cycleSum;
+        cycleMin = Math.min(cycleMin, other.cycleMin);
+        cycleMax = Math.max(cycleMax, other.cycleMax);
+        stepSum += other.stepSum;
+        if (other.best != null && (best == null || other.best.getScore() > best.getScore())) {
+            best = other.best;
+        }
+        if (other.firstError != null && (firstError == null || other.firstError.getSeed() < firstError.getSeed())) {
+            firstError = other.firstError;
+        }
+        return this;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getCount(Outcome outcome) {
+        return outcomes[outcome.ordinal()];
+    }
+
+    public Map<Outcome, Long> getOutcomes() {
+        Map<Outcome, Long> counts = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            counts.put(outcome, outcomes[outcome.ordinal()]);
+        }
+        return counts;
+    }
+
+    public double getMeanScore() {
+        return games == 0 ? 0 : scoreSum / (double) games;
+    }
+
+    public double getMeanMapScore() {
+        return games == 0 ? 0 : mapScoreSum / (double) games;
+    }
+
+    public double getMeanCycles() {
+        return games == 0 ? 0 : cycleSum / (double) games;
+    }
+
+    /**
+     * @return das Spiel mit den meisten Punkten, null falls es keine Spiele gab
+     */
+    public GameResult getBest() {
+        return best;
+    }
+
+    /**
+     * @return das fehlgeschlagene Spiel mit dem kleinsten Seed, null falls kein Spiel eine Exception geworfen hat
+     */
+    public GameResult getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * @return mehrzeiliger Bericht für die Konsole
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "games      %d%n", games));
+        if (games == 0) {
+            return report.toString();
+        }
+        for (Outcome outcome : Outcome.values()) {
+            long count = outcomes[outcome.ordinal()];
+            report.append(String.format(Locale.ROOT, "  %-14s %8d  %6.2f %%%n", outcome, count, 100.0 * count / games));
+        }
+        report.append(String.format(Locale.ROOT, "score      mean %.2f  min %d  max %d%n", getMeanScore(), scoreMin, scoreMax));
+        report.append(String.format(Locale.ROOT, "map score  mean %.2f%n", getMeanMapScore()));
+        report.append(String.format(Locale.ROOT, "cycles     mean %.1f  min %d  max %d%n", getMeanCycles(), cycleMin, cycleMax));
+        report.append(String.format(Locale.ROOT, "commands   mean %.1f%n", stepSum / (double) games));
+        report.append(String.format(Locale.ROOT, "best       seed %d  score %d%n", best.getSeed(), best.getScore()));
+        if (firstError != null) {
+            report.append(String.format(Locale.ROOT, "error      seed %d  %s%n", firstError.getSeed(), firstError.getError()));
+        }
+        return report.toString();
+    }
+}
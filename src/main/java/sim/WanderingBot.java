@@ -0,0 +1,52 @@
+package sim;
+
+import commands.Command;
+import commands.CommandFactory;
+import events.Event;
+import model.Map;
+import model.Ship;
+import model.Tile;
+import model.Tile.Direction;
+import model.Tile.FieldType;
+import model.TreasureStorage;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Einfacher Vergleichs-Bot: verlässt die Karte am Ausgang, sammelt Schätze auf, verkauft sie im Hafen und fährt
+ * sonst in eine zufällige verbundene Richtung.
+ */
+public class WanderingBot implements Bot {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Random random;
+
+    public WanderingBot(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Command nextCommand(Map map, List<Event> events, CommandFactory<Command> commands) {
+        Ship ship = map.getClientShip();
+        Tile tile = map.getPlayerTile();
+        TreasureStorage storage = ship.getTreasureStorage();
+        if (tile.getFieldType() == FieldType.EXIT) {
+            return commands.createLeave();
+        }
+        if (storage != null && tile.getTreasure() != null && storage.getCapacity() > 0) {
+            return commands.createPickup();
+        }
+        if (storage != null && !storage.isEmpty() && tile.getFieldType() == FieldType.HARBOR) {
+            return commands.createSell();
+        }
+        int start = random.nextInt(DIRECTIONS.length);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            Direction direction = DIRECTIONS[(start + i) % DIRECTIONS.length];
+            if (tile.hasConnection(direction)) {
+                return commands.createMove(direction);
+            }
+        }
+        return commands.createEndTurn();
+    }
+}
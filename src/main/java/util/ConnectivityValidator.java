@@ -0,0 +1,141 @@
+package util;
+
+import model.ChunkedTileStore;
+import model.Coordinate;
+import model.Map;
+import model.PackedTileStore;
+import model.Tile;
+import model.TileStore;
+import model.Tile.Direction;
+import org.json.JSONException;
+
+/**
+ * Überprüft das Layout einer Karte in linearer Zeit: jede Verbindung muss auf ein Feld zeigen, das zurück verbunden
+ * ist, und alle Felder müssen einen einzigen zusammenhängenden Bereich bilden.
+ * <p>
+ * Die Verbindungen liegen als Bitmaske pro Feld in einem Array. Ein Durchlauf prüft jedes Feld gegen seinen östlichen
+ * und südlichen Nachbarn und vereinigt verbundene Felder in einem Union-Find über ein int-Array (mit Pfadhalbierung).
+ * Am Ende muss genau ein Bereich übrig sein.
+ */
+public final class ConnectivityValidator {
+    static final int NORTH = 1;
+    static final int EAST = 2;
+    static final int SOUTH = 4;
+    static final int WEST = 8;
+
+    private ConnectivityValidator() {
+    }
+
+    /**
+     * @throws JSONException falls eine Verbindung gebrochen oder ein Feld nicht erreichbar ist
+     */
+    public static void validate(Map map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        byte[] masks = new byte[width * height];
+        TileStore tiles = map.getTileStore();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                masks[y * width + x] = (byte) mask(tiles, x, y);
+            }
+        }
+        validate(width, height, masks);
+    }
+
+    /**
+     * @param masks die Verbindungen der Felder zeilenweise, je Feld eine Kombination aus {@link #NORTH},
+     *              {@link #EAST}, {@link #SOUTH} und {@link #WEST}
+     * @throws JSONException falls eine Verbindung gebrochen oder ein Feld nicht erreichbar ist
+     */
+    static void validate(int width, int height, byte[] masks) {
+        int[] parent = new int[width * height];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        int areas = parent.length;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int cell = row + x;
+                int mask = masks[cell];
+                //Verbindungen nach Norden und Westen wurden schon vom jeweiligen Nachbarn geprüft, am Rand fehlt er
+                if (y == 0 && (mask & NORTH) != 0) {
+                    throw broken(x, y, Direction.NORTH);
+                }
+                if (x == 0 && (mask & WEST) != 0) {
+                    throw broken(x, y, Direction.WEST);
+                }
+                boolean east = (mask & EAST) != 0;
+                if (x == width - 1 ? east : east != ((masks[cell + 1] & WEST) != 0)) {
+                    throw east ? broken(x, y, Direction.EAST) : broken(x + 1, y, Direction.WEST);
+                }
+                boolean south = (mask & SOUTH) != 0;
+                if (y == height - 1 ? south : south != ((masks[cell + width] & NORTH) != 0)) {
+                    throw south ? broken(x, y, Direction.SOUTH) : broken(x, y + 1, Direction.NORTH);
+                }
+                if (east && union(parent, cell, cell + 1)) {
+                    areas--;
+                }
+                if (south && union(parent, cell, cell + width)) {
+                    areas--;
+                }
+            }
+        }
+        if (areas > 1) {
+            int root = find(parent, 0);
+            for (int cell = 1; cell < parent.length; cell++) {
+                if (find(parent, cell) != root) {
+                    throw new JSONException(String.format("Tile %s not reachable from %s, map has %d separate areas",
+                            new Coordinate(cell % width, cell / width), new Coordinate(0, 0), areas));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gepackte Ablagen halten die Verbindungen bereits in derselben Bitfolge, dort entsteht keine Sicht pro Feld.
+     */
+    private static int mask(TileStore tiles, int x, int y) {
+        if (tiles instanceof ChunkedTileStore) {
+            return ((ChunkedTileStore) tiles).getCell(x, y) & (NORTH | EAST | SOUTH | WEST);
+        }
+        if (tiles instanceof PackedTileStore) {
+            return ((PackedTileStore) tiles).getCell(x, y) & (NORTH | EAST | SOUTH | WEST);
+        }
+        Tile tile = tiles.get(x, y);
+        return (tile.isHasNorth() ? NORTH : 0) | (tile.isHasEast() ? EAST : 0)
+                | (tile.isHasSouth() ? SOUTH : 0) | (tile.isHasWest() ? WEST : 0);
+    }
+
+    private static JSONException broken(int x, int y, Direction dir) {
+        var pos = new Coordinate(x, y);
+        return new JSONException(String.format("Broken connection Tile %s, Conn: %s, adjacent: %s", pos,
+                dir, pos.coordinatesOf(dir)));
+    }
+
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * @return true, falls die beiden Felder bisher in verschiedenen Bereichen lagen
+     */
+    private static boolean union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return false;
+        }
+        //der kleinere Index wird Wurzel, so zeigen die Bäume zeilenweise nach oben und bleiben flach
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootA] = rootB;
+        }
+        return true;
+    }
+}
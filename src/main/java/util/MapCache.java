@@ -0,0 +1,121 @@
+package util;
+
+import model.Map;
+import model.MapSnapshot;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Vorlagen für Karten, die immer wieder neu gebraucht werden, etwa eine pro Spiel im Mehrspielerbetrieb. Jede Datei
+ * wird nur beim ersten Mal geparst und geprüft; danach entsteht jede weitere Karte per {@link MapSnapshot#toMap(boolean)}
+ * aus einer unveränderlichen Vorlage.
+ * <p>
+ * Die Einträge sind nach Pfad abgelegt und gelten nur, solange der Inhalt der Datei denselben Hash hat. Die Datei
+ * wird also bei jedem Aufruf gelesen, aber nicht mehr geparst; eine geänderte Karte wird sofort neu geladen.
+ * Es werden höchstens {@code capacity} Vorlagen gehalten, verdrängt wird die am längsten nicht benutzte.
+ * <p>
+ * Alle Methoden sind threadsicher. Parsen läuft außerhalb der Sperre, sodass verschiedene Karten parallel geladen
+ * werden können.
+ */
+public final class MapCache {
+
+    private static final class Template {
+        final long hash;
+        final MapSnapshot snapshot;
+
+        Template(long hash, MapSnapshot snapshot) {
+            this.hash = hash;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final LinkedHashMap<String, Template> templates;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity Anzahl der Vorlagen, die höchstens gehalten werden
+     */
+    public MapCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(java.util.Map.Entry<String, Template> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Liefert eine neue, veränderbare Karte aus der Datei, im JSON-Format oder von {@link MapFile} übersetzt.
+     *
+     * @param packed die Tiles in einem {@link model.PackedTileStore} ablegen
+     * @throws org.json.JSONException falls die JSON-Karte ungültig ist
+     */
+    public Map load(String path, boolean packed) throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(path));
+        long hash = hash(content);
+        Template template;
+        synchronized (this) {
+            template = templates.get(path);
+            if (template != null && template.hash == hash) {
+                hits++;
+                return template.snapshot.toMap(packed);
+            }
+            misses++;
+        }
+        template = new Template(hash, parse(path, content));
+        synchronized (this) {
+            templates.put(path, template);
+        }
+        return template.snapshot.toMap(packed);
+    }
+
+    private static MapSnapshot parse(String path, byte[] content) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (MapFile.isCompiled(buffer)) {
+            return MapFile.read(path, buffer);
+        }
+        String json = new String(content, StandardCharsets.UTF_8);
+        return SerializableMap.fromJSON(new StringReader(json)).toMapValid().snapshot();
+    }
+
+    /**
+     * CRC32C über den Inhalt, in den oberen 32 Bit dessen Länge.
+     */
+    private static long hash(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return ((long) content.length << 32) | crc.getValue();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return templates.size();
+    }
+}
@@ -0,0 +1,140 @@
+package util;
+
+import model.ChunkedTileStore;
+import model.Map;
+import model.MapSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Vorab übersetzte Karten: eine JSON-Karte wird einmal mit {@link SerializableMap#toMapValid()} geprüft und dann
+ * als {@link MapSnapshot} gespeichert. Laden heißt danach nur noch die Datei einblenden und die Arrays kopieren,
+ * ohne JSON-Parser und ohne erneute Prüfung.
+ * <p>
+ * Aufbau: {@code [MAGIC:int][Version:int]}, danach {@link MapSnapshot#toBytes()}, alles Big Endian. Große Dateien
+ * werden beim Laden eingeblendet statt gelesen.
+ */
+public final class MapFile {
+    public static final int MAGIC = 0x4D53434D; // "MSCM"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".bin";
+    private static final int HEADER = 8;
+    /**
+     * Ab dieser Größe wird die Datei eingeblendet statt gelesen; kleine Karten sind mit einem read schneller geladen.
+     */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    private MapFile() {
+    }
+
+    /**
+     * Lädt und prüft eine JSON-Karte und schreibt sie übersetzt nach {@code target}.
+     *
+     * @return Größe der geschriebenen Datei in Byte
+     * @throws org.json.JSONException falls die Karte ungültig ist
+     */
+    public static int compile(String jsonPath, Path target) throws IOException {
+        return write(Map.fromJson(jsonPath), target);
+    }
+
+    /**
+     * Schreibt den aktuellen Zustand der Karte, eine vorhandene Datei wird überschrieben.
+     *
+     * @return Größe der geschriebenen Datei in Byte
+     */
+    public static int write(Map map, Path target) throws IOException {
+        byte[] snapshot = map.snapshot().toBytes();
+        ByteBuffer file = ByteBuffer.allocate(HEADER + snapshot.length).putInt(MAGIC).putInt(VERSION).put(snapshot);
+        Files.write(target, file.array());
+        return file.capacity();
+    }
+
+    /**
+     * @throws IOException falls die Datei keine übersetzte Karte ist oder eine andere Version hat
+     */
+    public static Map read(String path) throws IOException {
+        return read(path, contents(path)).toMap();
+    }
+
+    /**
+     * Wie {@link #read(String)}, aber die Tiles landen ohne Zwischenkopie in einem {@link ChunkedTileStore}, siehe
+     * {@link StreamingMapLoader}.
+     *
+     * @throws IOException falls die Datei keine übersetzte Karte ist oder eine andere Version hat
+     */
+    public static Map readChunked(String path) throws IOException {
+        ByteBuffer file = contents(path);
+        checkHeader(path, file);
+        try {
+            return MapSnapshot.readChunkedMap(file);
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("%s is truncated or corrupt", path), e);
+        }
+    }
+
+    private static ByteBuffer contents(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer file = ByteBuffer.allocate((int) size);
+            while (file.hasRemaining() && channel.read(file) >= 0) {
+                // bis die Datei ganz gelesen ist
+            }
+            return file.flip();
+        }
+    }
+
+    /**
+     * Liest eine übersetzte Karte aus dem Inhalt ihrer Datei.
+     *
+     * @param path nur für Fehlermeldungen
+     */
+    static MapSnapshot read(String path, ByteBuffer file) throws IOException {
+        checkHeader(path, file);
+        try {
+            return MapSnapshot.fromBuffer(file);
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("%s is truncated or corrupt", path), e);
+        }
+    }
+
+    /**
+     * Prüft Kennung und Version und setzt die Position dahinter.
+     */
+    private static void checkHeader(String path, ByteBuffer file) throws IOException {
+        if (!isCompiled(file)) {
+            throw new IOException(String.format("%s is not a compiled map", path));
+        }
+        file.position(file.position() + 4);
+        int version = file.getInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("%s has map format version %d, expected %d", path, version, VERSION));
+        }
+    }
+
+    /**
+     * @return true, falls die Daten ab ihrer Position mit der Kennung einer übersetzten Karte beginnen
+     */
+    static boolean isCompiled(ByteBuffer file) {
+        return file.remaining() >= HEADER && file.getInt(file.position()) == MAGIC;
+    }
+
+    /**
+     * @return true, falls die Datei mit der Kennung einer übersetzten Karte beginnt
+     */
+    public static boolean isCompiled(String path) throws IOException {
+        try (InputStream in = Files.newInputStream(Paths.get(path))) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package util;
+
+import model.Coordinate;
+import model.Map;
+import model.Tile;
+import model.Tile.FieldEffect;
+import model.Tile.FieldType;
+import model.Treasure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Erzeugt zufällige Karten direkt als {@link Map}, gültig im Sinne von {@link SerializableMap#toMapValid()} und mit
+ * den Mengen aus der Spezifikation: {@link MapUtil#portCount} Häfen, einer davon der Start, {@link MapUtil#pirateCount}
+ * Piraten mit mindestens {@link MapUtil#minPlayerDistance} Abstand zum Start und zwischen
+ * {@link MapUtil#minTreasureCount} und {@link MapUtil#maxTreasureCount} Schätzen mit Werten aus dem
+ * {@link MapUtil.TreasureValueGenerator}.
+ * <p>
+ * Das Layout ist ein Irrgarten: ein zufälliger Spannbaum über alle Felder, in den zusätzlich jede fehlende Verbindung
+ * mit der Wahrscheinlichkeit {@code openness} eingefügt wird. Bei 0 gibt es genau einen Weg zwischen zwei Feldern,
+ * bei 1 ist die Karte offenes Meer.
+ * <p>
+ * Eine Karte hängt nur vom Zufallsgenerator ab, derselbe Seed ergibt dieselbe Karte. Der Generator hat nach der
+ * Konfiguration keinen veränderlichen Zustand und kann von beliebig vielen Threads zugleich benutzt werden.
+ */
+public final class MapGenerator {
+    private static final MapUtil.TreasureValueGenerator TREASURE_VALUES = new MapUtil.TreasureValueGenerator();
+    private static final int NORTH = 1;
+    private static final int EAST = 2;
+    private static final int SOUTH = 4;
+    private static final int WEST = 8;
+
+    /**
+     * Wofür der Generator eine Zufallszahl zieht, als Debug-Information für {@link MapUtil.RandGenMock}.
+     */
+    public enum Step {
+        SIZE, LAYOUT, PLACEMENT, TREASURE_COUNT, TREASURE_VALUE
+    }
+
+    private final int width;
+    private final int height;
+    private double openness;
+    private boolean packed;
+
+    /**
+     * Jede Karte bekommt eine zufällige Größe zwischen {@link MapUtil#MIN_SIZE} und {@link MapUtil#MAX_SIZE}.
+     */
+    public MapGenerator() {
+        this(0, 0);
+    }
+
+    /**
+     * @param width  Breite jeder Karte, 0 für eine zufällige
+     * @param height Höhe jeder Karte, 0 für eine zufällige
+     * @throws IllegalArgumentException falls die Größe nicht der Spezifikation entspricht
+     */
+    public MapGenerator(int width, int height) {
+        if ((width != 0 && !MapUtil.mapSizeValid(width)) || (height != 0 && !MapUtil.mapSizeValid(height))) {
+            throw new IllegalArgumentException(String.format("Kartengröße %dx%d entspricht nicht der Spezifikation",
+                    width, height));
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param openness Wahrscheinlichkeit für jede Verbindung außerhalb des Spannbaums, zwischen 0 und 1
+     */
+    public void setOpenness(double openness) {
+        if (!(openness >= 0 && openness <= 1)) {
+            throw new IllegalArgumentException("openness muss zwischen 0 und 1 liegen: " + openness);
+        }
+        this.openness = openness;
+    }
+
+    /**
+     * @param packed die Tiles der erzeugten Karten gepackt ablegen, siehe {@link Map#packTiles()}
+     */
+    public void setPacked(boolean packed) {
+        this.packed = packed;
+    }
+
+    public Map generate(long seed) {
+        return generate(new MapUtil.RandGenAdapter<>(seed));
+    }
+
+    public Map generate(MapUtil.RandGenMock<Step> random) {
+        int w = width != 0 ? width : random.nextInt(Step.SIZE, MapUtil.MIN_SIZE, MapUtil.MAX_SIZE + 1);
+        int h = height != 0 ? height : random.nextInt(Step.SIZE, MapUtil.MIN_SIZE, MapUtil.MAX_SIZE + 1);
+        byte[] masks = layout(w, h, random);
+        Tile[][] tiles = new Tile[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int mask = masks[y * w + x];
+                tiles[y][x] = new Tile(FieldEffect.NONE, FieldType.NORMAL, (mask & NORTH) != 0, (mask & EAST) != 0,
+                        (mask & SOUTH) != 0, (mask & WEST) != 0, false, null);
+            }
+        }
+        Map map = new Map(h, w);
+        map.setTiles(tiles);
+        place(map, random);
+        if (packed) {
+            map.packTiles();
+        }
+        return map;
+    }
+
+    /**
+     * @return die Verbindungen pro Feld, zeilenweise
+     */
+    private byte[] layout(int w, int h, MapUtil.RandGenMock<Step> random) {
+        int cells = w * h;
+        byte[] masks = new byte[cells];
+        if (openness >= 1) {
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    masks[y * w + x] = (byte) ((y > 0 ? NORTH : 0) | (x < w - 1 ? EAST : 0)
+                            | (y < h - 1 ? SOUTH : 0) | (x > 0 ? WEST : 0));
+                }
+            }
+            return masks;
+        }
+
+        //Spannbaum per Tiefensuche mit eigenem Stack, jedes Feld bekommt dabei mindestens eine Verbindung
+        boolean[] visited = new boolean[cells];
+        int[] stack = new int[cells];
+        int[] open = new int[4];
+        int top = 0;
+        int first = random.nextInt(Step.LAYOUT, 0, cells);
+        stack[top++] = first;
+        visited[first] = true;
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int x = cell % w;
+            int y = cell / w;
+            int count = 0;
+            if (y > 0 && !visited[cell - w]) {
+                open[count++] = NORTH;
+            }
+            if (x < w - 1 && !visited[cell + 1]) {
+                open[count++] = EAST;
+            }
+            if (y < h - 1 && !visited[cell + w]) {
+                open[count++] = SOUTH;
+            }
+            if (x > 0 && !visited[cell - 1]) {
+                open[count++] = WEST;
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int next = connect(masks, w, cell, open[random.nextInt(Step.LAYOUT, 0, count)]);
+            visited[next] = true;
+            stack[top++] = next;
+        }
+
+        if (openness > 0) {
+            for (int cell = 0; cell < cells; cell++) {
+                if (cell % w < w - 1 && (masks[cell] & EAST) == 0 && random.nextDouble(Step.LAYOUT) < openness) {
+                    connect(masks, w, cell, EAST);
+                }
+                if (cell + w < cells && (masks[cell] & SOUTH) == 0 && random.nextDouble(Step.LAYOUT) < openness) {
+                    connect(masks, w, cell, SOUTH);
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Verbindet das Feld in beide Richtungen mit seinem Nachbarn.
+     *
+     * @return der Nachbar
+     */
+    private static int connect(byte[] masks, int w, int cell, int direction) {
+        int next;
+        int back;
+        switch (direction) {
+            case NORTH:
+                next = cell - w;
+                back = SOUTH;
+                break;
+            case EAST:
+                next = cell + 1;
+                back = WEST;
+                break;
+            case SOUTH:
+                next = cell + w;
+                back = NORTH;
+                break;
+            default:
+                next = cell - 1;
+                back = EAST;
+                break;
+        }
+        masks[cell] |= direction;
+        masks[next] |= back;
+        return next;
+    }
+
+    /**
+     * Verteilt Start, Ausgang, Häfen, Piraten und Schätze. Alle Positionen kommen aus einer zufälligen Reihenfolge
+     * der Felder, jedes Feld wird höchstens einmal vergeben.
+     */
+    private static void place(Map map, MapUtil.RandGenMock<Step> random) {
+        int w = map.getWidth();
+        int h = map.getHeight();
+        int cells = w * h;
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            order[i] = i;
+        }
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(Step.PLACEMENT, 0, i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        boolean[] used = new boolean[cells];
+        int next = 0;
+
+        Coordinate start = coordinate(order[next++], w);
+        Coordinate exit = coordinate(order[next++], w);
+        List<Coordinate> ports = new ArrayList<>(MapUtil.portCount(w, h));
+        ports.add(start);
+        while (ports.size() < MapUtil.portCount(w, h)) {
+            ports.add(coordinate(order[next++], w));
+        }
+        for (int i = 0; i < next; i++) {
+            used[order[i]] = true;
+        }
+
+        int pirateCount = MapUtil.pirateCount(w, h);
+        int minDistance = MapUtil.minPlayerDistance(w, h);
+        List<Coordinate> pirates = new ArrayList<>(pirateCount);
+        for (int i = next; i < cells && pirates.size() < pirateCount; i++) {
+            Coordinate position = coordinate(order[i], w);
+            if (!used[order[i]] && distance(position, start) >= minDistance) {
+                pirates.add(position);
+                used[order[i]] = true;
+            }
+        }
+
+        int treasureCount = random.nextInt(Step.TREASURE_COUNT, MapUtil.minTreasureCount(w, h),
+                MapUtil.maxTreasureCount(w, h) + 1);
+        List<Pair<Coordinate, Treasure>> treasures = new ArrayList<>(treasureCount);
+        for (int i = next; i < cells && treasures.size() < treasureCount; i++) {
+            if (!used[order[i]]) {
+                treasures.add(new Pair<>(coordinate(order[i], w),
+                        new Treasure(TREASURE_VALUES.nextValue(Step.TREASURE_VALUE, random))));
+            }
+        }
+
+        map.setStartPosition(start);
+        MapUtil.addExit(map, exit);
+        MapUtil.addPorts(map, ports);
+        MapUtil.addPirates(map, pirates);
+        MapUtil.addTreasures(map, treasures);
+    }
+
+    private static Coordinate coordinate(int cell, int w) {
+        return new Coordinate(cell % w, cell / w);
+    }
+
+    private static int distance(Coordinate a, Coordinate b) {
+        return Math.abs(a.getxCoordinate() - b.getxCoordinate()) + Math.abs(a.getyCoordinate() - b.getyCoordinate());
+    }
+}
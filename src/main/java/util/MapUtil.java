@@ -21,6 +21,10 @@ public final class MapUtil {
     public static final double PORT_COUNTM_MULT = 0.01;
     public static final double TREASURE_COUNT_MIN_MULT = 0.05;
     public static final double TREASURE_COUNT_MAX_MULT = 0.2;
+    // Seitenlänge der Map laut Spezifikation und im Modus für große Karten
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 50;
+    public static final int MAX_LARGE_SIZE = 4096;
 
     private MapUtil() {
     }
@@ -122,7 +126,16 @@ public final class MapUtil {
      * @return
      */
     public static boolean mapSizeValid(int sz) {
-        return 3 <= sz && sz <= 50;
+        return MIN_SIZE <= sz && sz <= MAX_SIZE;
+    }
+
+    /**
+     * Überprüft Höhe / Breite einer Map für den Modus für große Karten, siehe {@link StreamingMapLoader}.
+     *
+     * @param sz Höhe / Breite der Map
+     */
+    public static boolean largeMapSizeValid(int sz) {
+        return MIN_SIZE <= sz && sz <= MAX_LARGE_SIZE;
     }
 
     /**
@@ -10,6 +10,7 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
@@ -107,8 +108,16 @@ public class SerializableMap {
      */
 
     public static SerializableMap fromJSON(String path) throws IOException {
-        var inStream = Files.newBufferedReader(Paths.get(path));
-        var parser = new JSONTokener(inStream);
+        try (var inStream = Files.newBufferedReader(Paths.get(path))) {
+            return fromJSON(inStream);
+        }
+    }
+
+    /**
+     * Wie {@link #fromJSON(String)}, aber aus bereits geöffneten oder gelesenen Daten.
+     */
+    public static SerializableMap fromJSON(Reader reader) {
+        var parser = new JSONTokener(reader);
         return Marshall.serializableMapFromJSON(new JSONObject(parser));
     }
 
@@ -259,140 +268,17 @@ public class SerializableMap {
      */
     public Map toMapValid() {
         var map = toMap();
-        checkMapLayout(map);
-        checkPirates();
-        checkStartExit();
+        ConnectivityValidator.validate(map);
+        var harbourSet = new HashSet<>(harbours);
+        checkPirates(pirates, harbourSet);
+        checkStartExit(start, exit, harbourSet);
         return map;
     }
 
-    private void checkValidConnectionDir(Map map, Coordinate pos, Direction dir) {
-        var tile = MapUtil.index(map, pos);
-        if (!tile.hasConnection(dir)) {
-            return;
-        }
-        var neighbour = pos.coordinatesOf(dir);
-        if (!(MapUtil.isInsideBounds(neighbour, map)
-                && MapUtil.index(map, neighbour).hasConnection(MapUtil.invertDir(dir)))) {
-            var msg = String.format("Broken connection Tile %s, Conn: %s, adjacent: %s", tile.toString(),
-                    dir.toString(), neighbour.toString());
-            throw new JSONException(msg);
-        }
-    }
-
-    /**
-     * Überprüft, ob die Verbindungen eines Feldes wohldeiniert sind.
-     * @param map die generierte Map
-     * @param pos die Koordinaten des Feldes, das überprüft werden soll.
-     */
-    private void checkValidConnection(Map map, Coordinate pos) {
-        checkValidConnectionDir(map, pos, Direction.NORTH);
-        checkValidConnectionDir(map, pos, Direction.EAST);
-        checkValidConnectionDir(map, pos, Direction.SOUTH);
-        checkValidConnectionDir(map, pos, Direction.EAST);
-    }
-
-    /**
-     * Bestimmt die Blöcke und einer Zeile. Überprüft dabei, ob alle Felder der Reihe wohldefiniert sind.
-     * @param map die generierte Map
-     * @param y die Zeilen-Nummer
-     * @return Blöcke
-     */
-    public List<Block> getBlocks(Map map, int y) {
-        int start = 0;
-        int end;
-        List<Block> blocks = new ArrayList<>(map.getWidth() / 5);
-        while (start < map.getWidth()) {
-            end = map.getWidth() - 1;
-            for (int x = start; x < map.getWidth(); x++) {
-                checkValidConnection(map, new Coordinate(x, y));
-                if (!map.getTile(x, y).hasConnection(Direction.EAST)) {
-                    end = x;
-                    break;
-                }
-            }
-            blocks.add(new Block(start, end, y));
-            start = end + 1;
-        }
-        return blocks;
-    }
-
-    /**
-     * Bestimmt die vertikalen Verbindung zwischen der y-ten und der (y-1) Reihe
-     * @param map die Map
-     * @param y die Reihennummer
-     * @return die vertikalen Verbindungen
-     */
-    public Set<Integer> getConnections(Map map, int y) {
-        Set<Integer> res = new HashSet<>();
-        for (int x = 0; x < map.getWidth(); x++) {
-            if (map.getTile(x, y - 1).isHasSouth()) {
-                res.add(x);
-            }
-        }
-        return res;
-    }
-
-    /**
-     * Verbindet alle zusammenhängende Blöcke einer Zeile.
-     * @param curRow die aktuelle Zeile
-     * @param prevRow die vorherige Zeile
-     * @param connections die Verbindungen zwischen curRow und prevRow und
-     * @return die (maximal) zummanehängenden Blöcke.
-     */
-    public List<Block> mergeRow(List<Block> curRow, List<Block> prevRow, Set<Integer> connections) {
-        for (var block: curRow) {
-            block.addVerticallyConnectedBlocks(prevRow, connections);
-        }
-        List<Block> remaining = curRow;
-        List<Block> merged = new ArrayList<>(curRow.size() / 4);
-        Block cur = curRow.get(0);
-        while (true) {
-            var res = cur.merge(remaining);
-            merged.add(res.getFst());
-            remaining = res.getSnd();
-            if (remaining.isEmpty()) {
-                return merged;
-            }
-            cur = remaining.get(0);
-        }
-    }
-
-    /**
-     * Überprüft, ob ein Block nicht erreichbar ist. Dies ist genau dann der Fall, wenn er keine Verbindung nach unten hat.
-     * @param blocks Liste mit den *maximalen = größten zusammenhängenden* Blöcken einer Zeile
-     * @param connections Verbindungen
-     */
-    private void checkPrevBlockReachable(Iterable<Block> blocks, Set<Integer> connections) {
-        for (var block: blocks) {
-            if (!connections.stream().anyMatch((x) -> block.getStart() <= x && x <= block.getEnd())) {
-                throw new JSONException(String.format("Block not reachable: %s", block.toString()));
-            }
-        }
-    }
-
-    /**
-     * Überprüft das Layout der Map
-     * @param map (de)generiertes Map-Objekt mit den Tiles.
-     * Die Methode überprüft die Anzahl der unabhängigen Bereiche, aus denen die Map besteht.
-     * Gibt es mehr als einen Bereich, sind nicht alle Felder erreichbar.
-     */
-    private void checkMapLayout(Map map) {
-        var prevRow = getBlocks(map, 0);
-        for (int y = 1; y < map.getHeight(); y++) {
-            var connections = getConnections(map, y);
-            checkPrevBlockReachable(prevRow, connections);
-            var curRow = getBlocks(map, y);
-            prevRow = mergeRow(curRow, prevRow, connections);
-        }
-        if (prevRow.size() > 1) {
-            throw new JSONException("Map ist not closed: More than one block on last row!");
-        }
-    }
-
     /**
      * Überprüft Bedingungen für die Piraten
      */
-    private void checkPirates() {
+    static void checkPirates(List<Coordinate> pirates, Set<Coordinate> harbours) {
         for (var pirate: pirates) {
             if (harbours.contains(pirate)) {
                 var msg = String.format("Pirate cannot spawn on a harbour: Coordinate %s", pirate.toString());
@@ -404,7 +290,7 @@ public class SerializableMap {
     /**
      * Überprüft Bedingungen für Start und Exit
      */
-    private void checkStartExit() {
+    static void checkStartExit(Coordinate start, Coordinate exit, Set<Coordinate> harbours) {
         if (start.equals(exit)) {
             throw new JSONException(String.format("Start must not equal exit: %s.", start.toString()));
         }
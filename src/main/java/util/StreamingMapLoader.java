@@ -0,0 +1,226 @@
+package util;
+
+import model.ChunkedTileStore;
+import model.Coordinate;
+import model.Map;
+import model.Tile;
+import model.Treasure;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modus für große Karten: Seitenlängen bis {@link MapUtil#MAX_LARGE_SIZE}, die Tiles in einem
+ * {@link ChunkedTileStore}, sodass offenes Meer keinen Speicher belegt.
+ * <p>
+ * JSON-Karten werden gestreamt: die Zeilen unter {@code "map"} werden einzeln gelesen und sofort in die Ablage
+ * übernommen, die String-Repräsentation der ganzen Karte entsteht nie. Nur falls {@code "map"} vor
+ * {@code "width"} und {@code "height"} steht, werden die Zeilen bis dahin als ein Byte pro Feld gepuffert.
+ * Geprüft wird wie von {@link SerializableMap#toMapValid()}. Übersetzte Karten ({@link MapFile}) werden Feld für Feld
+ * aus der eingeblendeten Datei übernommen.
+ */
+public final class StreamingMapLoader {
+    private static final char FIRST_PIECE = '\u2500';
+    /**
+     * Das Tile zu jedem gültigen Zeichen der String-Repräsentation, ab {@link #FIRST_PIECE}.
+     */
+    private static final Tile[] PIECES = new Tile[0x80];
+
+    static {
+        for (int i = 0; i < PIECES.length; i++) {
+            char c = (char) (FIRST_PIECE + i);
+            if (!Marshall.isInvalidStringRep(c)) {
+                PIECES[i] = SerializableMap.tileFomChar(c);
+            }
+        }
+    }
+
+    private StreamingMapLoader() {
+    }
+
+    /**
+     * Lädt eine Karte im JSON-Format oder eine mit {@link MapFile} übersetzte, je nach Inhalt der Datei.
+     */
+    public static Map load(String path) throws IOException {
+        return MapFile.isCompiled(path) ? MapFile.readChunked(path) : fromJson(path);
+    }
+
+    /**
+     * @throws JSONException falls die Karte ungültig ist
+     */
+    public static Map fromJson(String path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(Paths.get(path))) {
+            return fromJson(reader);
+        }
+    }
+
+    /**
+     * @throws JSONException falls die Karte ungültig ist
+     */
+    public static Map fromJson(Reader reader) {
+        JSONTokener tokener = new JSONTokener(reader);
+        Rows rows = new Rows();
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("A JSONObject text must begin with '{'");
+        }
+        char c = tokener.nextClean();
+        while (c != '}') {
+            tokener.back();
+            String key = tokener.nextValue().toString();
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a key");
+            }
+            if (key.equals("map")) {
+                readRows(tokener, rows);
+            } else {
+                rows.header.put(key, tokener.nextValue());
+            }
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != '}') {
+                throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+        }
+        return toMap(rows);
+    }
+
+    /**
+     * Liest das Array unter {@code "map"} Zeile für Zeile.
+     */
+    private static void readRows(JSONTokener tokener, Rows rows) {
+        if (tokener.nextClean() != '[') {
+            throw new JSONException("Failed to parse string representation: map is not an array");
+        }
+        char c = tokener.nextClean();
+        while (c != ']') {
+            tokener.back();
+            Object row = tokener.nextValue();
+            if (!(row instanceof String)) {
+                throw new JSONException(String.format("Failed to parse string representation: row %d is not a string",
+                        rows.count));
+            }
+            rows.add(pieces((String) row));
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != ']') {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
+    /**
+     * @return pro Feld der Index des Zeichens in {@link #PIECES}
+     */
+    private static byte[] pieces(String row) {
+        byte[] res = new byte[row.length()];
+        for (int x = 0; x < res.length; x++) {
+            int piece = row.charAt(x) - FIRST_PIECE;
+            if (piece < 0 || piece >= PIECES.length || PIECES[piece] == null) {
+                throw new JSONException("Failed to parse string representation: Invalid character in string representation");
+            }
+            res[x] = (byte) piece;
+        }
+        return res;
+    }
+
+    private static Map toMap(Rows rows) {
+        ChunkedTileStore tiles = rows.tiles();
+        int width = tiles.getWidth();
+        int height = tiles.getHeight();
+        if (rows.count != height) {
+            throw new JSONException(String.format("Failed to parse string representation: Expected %d rows, got %d",
+                    height, rows.count));
+        }
+        JSONObject header = rows.header;
+        Coordinate start = Marshall.coordFromJSON(header.getJSONArray("start"), width, height);
+        Coordinate exit = Marshall.coordFromJSON(header.getJSONArray("exit"), width, height);
+        List<Coordinate> pirates = Marshall.fromOptionalArray(header,
+                (a) -> Marshall.coordListFromJSON(a, "pirate", width, height), "pirates", "pirate");
+        List<Coordinate> ports = Marshall.coordListFromJSON(header.getJSONArray("harbors"), "harbor", width, height);
+        List<Pair<Coordinate, Treasure>> treasures = Marshall.fromOptionalArray(header,
+                (a) -> Marshall.treasureListFromJSON(a, width, height), "treasures", "treasure");
+
+        Map map = new Map(height, width);
+        map.setTileStore(tiles);
+        map.setStartPosition(start);
+        MapUtil.addExit(map, exit);
+        MapUtil.addPirates(map, pirates);
+        MapUtil.addPorts(map, ports);
+        MapUtil.addTreasures(map, treasures);
+
+        ConnectivityValidator.validate(map);
+        Set<Coordinate> harbours = new HashSet<>(ports);
+        SerializableMap.checkPirates(pirates, harbours);
+        SerializableMap.checkStartExit(start, exit, harbours);
+        return map;
+    }
+
+    /**
+     * Übernimmt die gelesenen Zeilen in die Ablage, sobald ihre Größe bekannt ist.
+     */
+    private static final class Rows {
+        final JSONObject header = new JSONObject();
+        final List<byte[]> pending = new ArrayList<>();
+        ChunkedTileStore tiles;
+        int count;
+
+        void add(byte[] row) {
+            if (tiles == null && header.has("width") && header.has("height")) {
+                tiles();
+            }
+            if (tiles == null) {
+                pending.add(row);
+            } else {
+                put(count, row);
+            }
+            count++;
+        }
+
+        /**
+         * Legt die Ablage an, falls noch nicht geschehen, und übernimmt die gepufferten Zeilen.
+         */
+        ChunkedTileStore tiles() {
+            if (tiles == null) {
+                int width = header.getInt("width");
+                if (!MapUtil.largeMapSizeValid(width)) {
+                    throw new JSONException(String.format("Invalid map size: %d", width));
+                }
+                int height = header.getInt("height");
+                if (!MapUtil.largeMapSizeValid(height)) {
+                    throw new JSONException(String.format("Invalid map size: %d", height));
+                }
+                tiles = new ChunkedTileStore(width, height);
+                for (int y = 0; y < pending.size(); y++) {
+                    put(y, pending.get(y));
+                }
+                pending.clear();
+            }
+            return tiles;
+        }
+
+        private void put(int y, byte[] row) {
+            if (y >= tiles.getHeight()) {
+                throw new JSONException(String.format("Failed to parse string representation: Too much rows, expected: %d",
+                        tiles.getHeight()));
+            }
+            if (row.length != tiles.getWidth()) {
+                throw new JSONException(String.format("Failed to parse string representation: Line is too long: Expected %d, got %d",
+                        tiles.getWidth(), row.length));
+            }
+            for (int x = 0; x < row.length; x++) {
+                tiles.set(x, y, PIECES[row[x]]);
+            }
+        }
+    }
+}